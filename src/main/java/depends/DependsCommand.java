@@ -51,7 +51,7 @@ public class DependsCommand {
     private String src;
 	@Parameters(index = "2",  description = "The output file name")
 	private String output;
-    @Option(names = {"-f", "--format"},split=",",  description = "the output format: [json(default),xml,excel,detail,dot,plantuml]")
+    @Option(names = {"-f", "--format"},split=",",  description = "the output format: [json(default),xml,excel,detail,dot,plantuml,binary]")
     private String[] format=new String[]{"json"};
 	@Option(names = {"-d", "--dir"},  description = "The output directory")
 	private String dir;
@@ -72,8 +72,12 @@ public class DependsCommand {
 	private String[] excludes = new String[] {};
 	@Option(names = {"--auto-include"},split=",", description = "auto include all paths under the source path (please notice the potential side effect)")
 	private boolean autoInclude = false;
-	@Option(names = {"--detail"},split=",", description = "add detail dependency information to output (only applicable for JSON output format)")
+	@Option(names = {"--detail"},split=",", description = "add detail dependency information to output (only applicable for JSON and binary output formats)")
 	private boolean detail = false;	
+	@Option(names = {"--compact-json"}, description = "Write the JSON output without indentation and line breaks")
+	private boolean compactJson = false;
+	@Option(names = {"--gzip-xml"}, description = "Write the XML output to a gzip file (.xml.gz)")
+	private boolean gzipXml = false;
 	@Option(names = {"--auto-stub"},split=",", description = "create stub files for unsolved symbols (exprimental feature, only for java)")
 	private boolean autoStub = false;	
 	@Option(names = {"--type-filter"},split=",",  completionCandidates = DependsCommand.SupportedTypes.class, description = "only filter the listed dependency types[${COMPLETION-CANDIDATES}]")
@@ -84,6 +88,24 @@ public class DependsCommand {
 	private boolean duckTypingDeduce = true;
 	@Option(names = {"--output-self-deps"}, description = "Output self dependencies")
 	private boolean outputSelfDependencies = false;
+	@Option(names = {"--threads"}, description = "The number of threads used to parse files (default 1)")
+	private int threads = 1;
+	@Option(names = {"--parallel-resolve"}, description = "Resolve types and relations of files with the threads")
+	private boolean parallelResolve = false;
+	@Option(names = {"--parallel-matrix"}, description = "Build the matrices of the granularities in parallel, one thread for each granularity")
+	private boolean parallelMatrix = false;
+	@Option(names = {"--shared-parser-cache"}, description = "Share a bounded ANTLR prediction cache between the parses of files, instead of clearing it for each file (java, go and kotlin)")
+	private boolean sharedParserCache = false;
+	@Option(names = {"--ll-parse"}, description = "Parse the files in full LL mode only, instead of SLL mode first with the fallback to LL mode for the files SLL fails (java, go, kotlin and python)")
+	private boolean llParse = false;
+	@Option(names = {"--cpp-prescan"}, description = "Find the included files of c/c++ files by a preprocessor-only prescan, so that each file is fully parsed once")
+	private boolean cppPrescan = false;
+	@Option(names = {"--parallel-dump"}, description = "Output the formats and granularities concurrently with the threads, overlapped with building the other matrices")
+	private boolean parallelDump = false;
+	@Option(names = {"--entity-repo"}, description = "The entity repo implementation.[memory, concurrent]. Default is memory, or concurrent if threads > 1")
+	private String entityRepo = "";
+	@Option(names = {"--incremental"}, description = "The snapshot directory of incremental analysis. Only the files changed since the snapshot and the files depending on them are analysed again (java, go and pom)")
+	private String incremental = null;
 	@Option(names = {"-h","--help"}, usageHelp = true, description = "display this help and exit")
     boolean help;
 	public DependsCommand() {
@@ -167,4 +189,37 @@ public class DependsCommand {
 	public boolean isDuckTypingDeduce() {
 		return this.duckTypingDeduce;
 	}
+	public int getThreads() {
+		return threads;
+	}
+	public String getEntityRepo() {
+		return entityRepo;
+	}
+	public boolean isParallelResolve() {
+		return parallelResolve;
+	}
+	public boolean isParallelMatrix() {
+		return parallelMatrix;
+	}
+	public boolean isParallelDump() {
+		return parallelDump;
+	}
+	public boolean isSharedParserCache() {
+		return sharedParserCache;
+	}
+	public boolean isLLParse() {
+		return llParse;
+	}
+	public boolean isCppPrescan() {
+		return cppPrescan;
+	}
+	public String getIncremental() {
+		return incremental;
+	}
+	public boolean isCompactJson() {
+		return compactJson;
+	}
+	public boolean isGzipXml() {
+		return gzipXml;
+	}
 }
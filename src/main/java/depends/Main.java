@@ -25,19 +25,24 @@ SOFTWARE.
 package depends;
 
 import depends.addons.DV8MappingFileBuilder;
+import depends.entity.ContainerEntity;
+import depends.entity.ExpressionStore;
+import depends.entity.repo.ConcurrentEntityRepo;
 import depends.entity.repo.EntityRepo;
+import depends.entity.repo.EntityRepoSnapshot;
+import depends.entity.repo.InMemoryEntityRepo;
 import depends.extractor.AbstractLangProcessor;
 import depends.extractor.LangProcessorRegistration;
 import depends.extractor.UnsolvedBindings;
+import depends.extractor.cpp.CppProcessor;
 import depends.format.DependencyDumper;
 import depends.format.detail.UnsolvedSymbolDumper;
 import depends.generator.DependencyGenerator;
 import depends.generator.FileDependencyGenerator;
 import depends.generator.FunctionDependencyGenerator;
+import depends.generator.MultiGranularityDependencyGenerator;
 import depends.generator.StructureDependencyGenerator;
-import depends.matrix.core.DependencyMatrix;
 import depends.relations.BindingResolver;
-import depends.relations.IBindingResolver;
 import depends.relations.RelationCounter;
 import multilang.depends.util.file.FileUtil;
 import multilang.depends.util.file.FolderCollector;
@@ -52,8 +57,13 @@ import picocli.CommandLine.PicocliException;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry pooint of depends
@@ -92,6 +102,13 @@ public class Main {
 				throw  new ParameterException("granularity is invalid:"+g);
 			}
 		}
+		if (args.getThreads()<1) {
+			throw new ParameterException("threads is invalid:"+args.getThreads());
+		}
+		List<String> validEntityRepos = Arrays.asList(new String[]{"", "memory", "concurrent"});
+		if (!validEntityRepos.contains(args.getEntityRepo())) {
+			throw new ParameterException("entity repo is invalid:"+args.getEntityRepo());
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -116,21 +133,59 @@ public class Main {
 			return;
 		}
 
-		IBindingResolver bindingResolver = new BindingResolver(langProcessor, args.isOutputExternalDependencies(), args.isDuckTypingDeduce());
+		langProcessor.setThreads(args.getThreads());
+		langProcessor.setSharedParserCache(args.isSharedParserCache());
+		langProcessor.setTwoStageParse(!args.isLLParse());
+		if (langProcessor instanceof CppProcessor)
+			((CppProcessor)langProcessor).setPrescanIncludes(args.isCppPrescan());
+		EntityRepoSnapshot snapshot = loadSnapshot(args, langProcessor, inputDir);
+		langProcessor.setEntityRepo(snapshot!=null?snapshot.getRepo():createEntityRepo(args));
+		BindingResolver bindingResolver = new BindingResolver(langProcessor, args.isOutputExternalDependencies(), args.isDuckTypingDeduce());
+		if (args.isParallelResolve()) {
+			ContainerEntity.setStrongExpressionMap(true);
+			bindingResolver.setParallelResolve(args.getThreads());
+		}
 
 		long startTime = System.currentTimeMillis();
 		//step1: build data
-		EntityRepo entityRepo = langProcessor.buildDependencies(inputDir, includeDir, excludes, bindingResolver);
+		EntityRepo entityRepo;
+		if (snapshot!=null)
+			entityRepo = langProcessor.buildDependencies(inputDir, includeDir, excludes, bindingResolver, snapshot);
+		else
+			entityRepo = langProcessor.buildDependencies(inputDir, includeDir, excludes, bindingResolver);
 
-		new RelationCounter(entityRepo,langProcessor, bindingResolver).computeRelations();
+		RelationCounter relationCounter = new RelationCounter(entityRepo,langProcessor, bindingResolver);
+		if (args.isParallelResolve())
+			relationCounter.setThreads(args.getThreads());
+		relationCounter.setPrefetch(args.isParallelResolve() || args.getThreads() > 1);
+		if (langProcessor.getRebuiltFiles()!=null)
+			relationCounter.computeRelations(langProcessor.getRebuiltFiles());
+		else
+			relationCounter.computeRelations();
 		System.out.println("Dependency done....");
+		if (args.getIncremental()!=null && langProcessor.supportIncrementalBuild()) {
+			new EntityRepoSnapshot(lang, inputDir, langProcessor.getFileHashes(), entityRepo).save(args.getIncremental());
+		}
 
 		//step2: generate dependencies matrix
 		List<DependencyGenerator> dependencyGenerators = getDependencyGenerators(args, inputDir);
-		for (DependencyGenerator dependencyGenerator:dependencyGenerators) {
-			DependencyMatrix matrix = dependencyGenerator.identifyDependencies(entityRepo, args.getTypeFilter());
+		MultiGranularityDependencyGenerator multiGranularityGenerator = new MultiGranularityDependencyGenerator(dependencyGenerators);
+		multiGranularityGenerator.setParallel(args.isParallelMatrix());
+		ExecutorService dumpExecutor = args.isParallelDump()?Executors.newFixedThreadPool(args.getThreads()):null;
+		List<Future<?>> dumps = Collections.synchronizedList(new ArrayList<>());
+		multiGranularityGenerator.identifyDependencies(entityRepo, args.getTypeFilter(), (matrix, i) -> {
 			DependencyDumper output = new DependencyDumper(matrix);
-			output.outputResult(outputName+"-"+dependencyGenerator.getType(), outputDir, outputFormat);
+			output.setCompactJson(args.isCompactJson());
+			output.setGzipXml(args.isGzipXml());
+			String projectName = outputName+"-"+dependencyGenerators.get(i).getType();
+			if (dumpExecutor!=null)
+				dumps.addAll(output.submitResult(dumpExecutor, projectName, outputDir, outputFormat));
+			else
+				output.outputResult(projectName, outputDir, outputFormat);
+		});
+		if (dumpExecutor!=null) {
+			waitForDumps(dumps);
+			dumpExecutor.shutdown();
 		}
 
 		if (args.isOutputExternalDependencies()) {
@@ -140,6 +195,7 @@ public class Main {
 	    	unsolvedSymbolDumper.output();
 		}
 		long endTime = System.currentTimeMillis();
+		ExpressionStore.getInstance().close();
 		TemporaryFile.getInstance().delete();
 		CacheManager.create().shutdown();
 		System.out.println("Consumed time: " + (float) ((endTime - startTime) / 1000.00) + " s,  or "
@@ -150,6 +206,20 @@ public class Main {
 		}
 	}
 
+	/* the errors are reported per format by the dump tasks */
+	private static void waitForDumps(List<Future<?>> dumps) {
+		for (Future<?> dump:dumps) {
+			try {
+				dump.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	private static String[] appendAllFoldersToIncludePath(String inputDir, String[] includeDir) {
 		FolderCollector includePathCollector = new FolderCollector();
 		List<String> additionalIncludePaths = includePathCollector.getFolders(inputDir);
@@ -158,6 +228,33 @@ public class Main {
 		return includeDir;
 	}
 
+	/**
+	 * @return the snapshot of the previous run if the incremental analysis is applicable, otherwise null
+	 */
+	private static EntityRepoSnapshot loadSnapshot(DependsCommand args, AbstractLangProcessor langProcessor, String inputDir) {
+		if (args.getIncremental()==null) return null;
+		if (!langProcessor.supportIncrementalBuild()) {
+			System.out.println("Incremental analysis is not supported for " + args.getLang() + ", all files will be analysed");
+			return null;
+		}
+		if (args.isOutputExternalDependencies()) {
+			System.out.println("External dependencies are only collected in a full analysis, all files will be analysed");
+			return null;
+		}
+		EntityRepoSnapshot snapshot = EntityRepoSnapshot.load(args.getIncremental());
+		if (snapshot==null || !snapshot.matches(args.getLang(), inputDir))
+			return null;
+		return snapshot;
+	}
+
+	private static EntityRepo createEntityRepo(DependsCommand args) {
+		if (args.getEntityRepo().equals("memory"))
+			return new InMemoryEntityRepo();
+		if (args.getEntityRepo().equals("concurrent") || args.getThreads() > 1)
+			return new ConcurrentEntityRepo();
+		return new InMemoryEntityRepo();
+	}
+
 	private static List<DependencyGenerator> getDependencyGenerators(DependsCommand app, String inputDir) throws ParameterException {
 		FilenameWritter filenameWritter = new EmptyFilenameWritter();
 		if (!StringUtils.isEmpty(app.getNamePathPattern())) {
@@ -25,6 +25,8 @@ SOFTWARE.
 package depends.deptypes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DependencyType {
 	public static final String IMPORT = "Import";
@@ -72,4 +74,50 @@ public class DependencyType {
 		depedencyTypes.add(PomDependency);
 		return depedencyTypes;
 	}
+
+	/*
+	 * Dependency types are interned to small ordinals, so relations could keep
+	 * the type in a byte. The ordinals of the built-in types follow allDependencies();
+	 * other types (for example, mapped by a language processor) get the next free ordinal.
+	 */
+	public static final int MAX_ORDINALS = 128;
+	private static ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+	private static volatile String[] names = new String[0];
+	private static volatile String[] possibleNames = new String[0];
+	static {
+		for (String type:allDependencies()) {
+			ordinalOf(type);
+		}
+	}
+
+	public static int ordinalOf(String type) {
+		Integer ordinal = ordinals.get(type);
+		if (ordinal!=null) return ordinal;
+		synchronized (DependencyType.class) {
+			ordinal = ordinals.get(type);
+			if (ordinal!=null) return ordinal;
+			ordinal = names.length;
+			if (ordinal>=MAX_ORDINALS)
+				throw new IllegalStateException("too many dependency types: " + type);
+			String[] grownNames = Arrays.copyOf(names, ordinal+1);
+			grownNames[ordinal] = type;
+			String[] grownPossibleNames = Arrays.copyOf(possibleNames, ordinal+1);
+			grownPossibleNames[ordinal] = type + POSSIBLE_DEP;
+			names = grownNames;
+			possibleNames = grownPossibleNames;
+			ordinals.put(type, ordinal);
+			return ordinal;
+		}
+	}
+
+	public static String nameOf(int ordinal) {
+		return names[ordinal];
+	}
+
+	/**
+	 * @return the type name with POSSIBLE_DEP suffix, without building a new string
+	 */
+	public static String possibleNameOf(int ordinal) {
+		return possibleNames[ordinal];
+	}
 }
@@ -29,6 +29,7 @@ import depends.relations.IBindingResolver;
 import java.util.*;
 
 public class AliasEntity extends Entity {
+	private static final long serialVersionUID = 1L;
 	private Entity referToEntity = new EmptyTypeEntity();
 	private GenericName originName;
 	private List<Entity> referPath = new ArrayList<>();
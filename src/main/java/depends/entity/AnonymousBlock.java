@@ -27,6 +27,8 @@ package depends.entity;
 import java.util.UUID;
 
 public class AnonymousBlock extends ContainerEntity{
+	private static final long serialVersionUID = 1L;
+    public AnonymousBlock() {}
     public AnonymousBlock(Entity parent, Integer id) {
     	super(GenericName.build(UUID.randomUUID().toString()),  parent, id);
 	}
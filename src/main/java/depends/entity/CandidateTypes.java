@@ -30,6 +30,7 @@ import depends.relations.Relation;
 import java.util.*;
 
 public class CandidateTypes extends TypeEntity {
+	private static final long serialVersionUID = 1L;
 	private List<TypeEntity> candidateTypes;
 
 	public CandidateTypes() {
@@ -228,7 +229,7 @@ public class CandidateTypes extends TypeEntity {
 	}
 
 	@Override
-	public ArrayList<Relation> getRelations() {
+	public List<Relation> getRelations() {
 		System.err.println("error: getRelations should not been invoked");
 		return super.getRelations();
 	}
@@ -27,11 +27,9 @@ package depends.entity;
 import depends.entity.repo.EntityRepo;
 import depends.relations.IBindingResolver;
 import depends.relations.Relation;
-import multilang.depends.util.file.TemporaryFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
 import java.lang.ref.WeakReference;
 import java.util.*;
 
@@ -40,11 +38,15 @@ import java.util.*;
  * vars, functions, ecpressions, type parameters, etc.
  */
 public abstract class ContainerEntity extends DecoratedEntity {
+	private static final long serialVersionUID = 1L;
 	private static final Logger logger = LoggerFactory.getLogger(ContainerEntity.class);
 
 	private ArrayList<VarEntity> vars;
 	private ArrayList<FunctionEntity> functions;
-	WeakReference<HashMap<Object, Expression>> expressionWeakReference;
+	transient WeakReference<HashMap<Object, Expression>> expressionWeakReference;
+	/* the expressions by their syntax nodes are held strongly until they are cached, when strongExpressionMap is set */
+	private transient HashMap<Object, Expression> expressionMap;
+	private static boolean strongExpressionMap = false;
 	private ArrayList<Expression> expressionList;
 	private int expressionCount = 0;
 	private Collection<GenericName> mixins;
@@ -99,13 +101,27 @@ public abstract class ContainerEntity extends DecoratedEntity {
 	}
 
 	public HashMap<Object, Expression> expressions() {
-		if (expressionWeakReference==null)
-			expressionWeakReference= new WeakReference<HashMap<Object, Expression>>(new HashMap<>());
+		if (expressionWeakReference==null) {
+			HashMap<Object, Expression> map = new HashMap<>();
+			expressionWeakReference= new WeakReference<HashMap<Object, Expression>>(map);
+			if (strongExpressionMap)
+				expressionMap = map;
+		}
 		HashMap<Object, Expression> r = expressionWeakReference.get();
 		if (r==null) return new HashMap<>();
 		return r;
 	}
 
+	/**
+	 * Hold the expression maps of the entities strongly until the expressions are cached,
+	 * so that they are not dropped by GC during parsing. It is used by parallel resolving,
+	 * whose result should not depend on the timing of GC.
+	 * @param strong
+	 */
+	public static void setStrongExpressionMap(boolean strong) {
+		strongExpressionMap = strong;
+	}
+
 	public void addExpression(Object key, Expression expression) {
 		expressions().put(key, expression);
 		expressionList().add(expression);
@@ -242,6 +258,7 @@ public abstract class ContainerEntity extends DecoratedEntity {
 		if (expressionList==null) return;
 		this.expressions().clear();
 		this.expressionWeakReference.clear();
+		this.expressionMap = null;
 		cacheExpressionListToFile();
 		this.expressionList.clear();
 		this.expressionList=null;
@@ -253,6 +270,7 @@ public abstract class ContainerEntity extends DecoratedEntity {
 		if (expressionList==null) return;
 		this.expressions().clear();
 		this.expressionWeakReference.clear();
+		this.expressionMap = null;
 		this.expressionList.clear();
 		this.expressionList=null;
 		this.expressionList = new ArrayList<>();
@@ -261,35 +279,17 @@ public abstract class ContainerEntity extends DecoratedEntity {
 	
 	private void cacheExpressionListToFile() {
 		if (expressionCount ==0) return;
-		try {
-			FileOutputStream fileOut = new FileOutputStream(TemporaryFile.getInstance().exprPath(this.id));
-			ObjectOutputStream out = new ObjectOutputStream(fileOut);
-			out.writeObject(this.expressionList);
-			out.close();
-			fileOut.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		ExpressionStore.getInstance().write(this.id, this.expressionList);
 	}
 
-	@SuppressWarnings("unchecked")
 	public void reloadExpression(EntityRepo repo) {
 		if (expressionCount ==0) return;
-		try
-	      {
-	         FileInputStream fileIn = new FileInputStream(TemporaryFile.getInstance().exprPath(this.id));
-	         ObjectInputStream in = new ObjectInputStream(fileIn);
-	         expressionList = (ArrayList<Expression>) in.readObject();
-	         if (expressionList==null) expressionList = new ArrayList<>();
-	         for (Expression expr:expressionList) {
-	        	 expr.reload(repo,expressionList);
-	         }
-	         in.close();
-	         fileIn.close();
-	      }catch(IOException | ClassNotFoundException i)
-	      {
-	         return;
-	      }
+		ArrayList<Expression> reloaded = ExpressionStore.getInstance().read(this.id);
+		if (reloaded==null) return;
+		expressionList = reloaded;
+		for (Expression expr:expressionList) {
+			expr.reload(repo,expressionList);
+		}
 	}
 	
 
@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.List;
 
 public abstract class DecoratedEntity extends Entity{
+	private static final long serialVersionUID = 1L;
 	private Collection<GenericName> annotations;
 	private Collection<Entity> resolvedAnnotations;
 	private Collection<Entity> resolvedTypeParameters;
@@ -25,6 +25,7 @@ SOFTWARE.
 package depends.entity;
 
 public class EmptyTypeEntity extends TypeEntity {
+	private static final long serialVersionUID = 1L;
 
 	public EmptyTypeEntity() {
 		super(GenericName.build(""), null, -1);
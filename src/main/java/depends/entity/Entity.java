@@ -26,7 +26,12 @@ package depends.entity;
 
 import depends.relations.IBindingResolver;
 import depends.relations.Relation;
+import depends.relations.RelationList;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -35,15 +40,19 @@ import java.util.*;
  * Each entity has unique id, name,qualifiedName, parent, children
  * We also use entity to record relations 
  */
-public abstract class Entity {
+public abstract class Entity implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
     Integer id=-1;
 	String qualifiedName = null;
 	GenericName rawName = GenericName.build("");
 	Entity parent;
 	private MultiDeclareEntities mutliDeclare = null;
-	private Set<Entity> children;
-    ArrayList<Relation> relations;
+	private transient Set<Entity> children;
+	/* children read from a snapshot; the set is rebuilt once the whole graph is read,
+	 * since the ids of children may not be read yet when they are referred back */
+	private transient Entity[] serializedChildren;
+    RelationList relations;
 	private Entity actualReferTo = null;
 	private boolean inScope = true;
 	protected HashMap<String, Entity> visibleNames = new HashMap<>();
@@ -62,6 +71,11 @@ public abstract class Entity {
 	}
 
     private Set<Entity> children() {
+    	if (serializedChildren!=null) {
+    		children = new HashSet<>();
+    		children.addAll(Arrays.asList(serializedChildren));
+    		serializedChildren = null;
+    	}
     	if (children==null)
     		children = new HashSet<>();
 		return children;
@@ -105,14 +119,25 @@ public abstract class Entity {
 
     public void addRelation(Relation relation) {
     	if (relations==null)
-    		relations = new ArrayList<>();
+    		relations = new RelationList();
     	if (relation.getEntity()==null) return;
         relations.add(relation);
     }
 
-    public ArrayList<Relation> getRelations() {
+    /**
+     * @return a read-only view of the relations; use relationList() to go
+     *         through them without building Relation objects
+     */
+    public List<Relation> getRelations() {
     	if (relations==null)
     		return new ArrayList<>();
+        return relations.asList();
+    }
+
+    /**
+     * @return the relations in columns, or null if the entity has no relation
+     */
+    public RelationList relationList() {
         return relations;
     }
 
@@ -122,6 +147,11 @@ public abstract class Entity {
 		visibleNames.put(child.getQualifiedName(), child);
     }
 
+    public void removeChild(Entity child) {
+    	children().remove(child);
+    	visibleNames.values().removeIf(entity->entity==child);
+    }
+
 	public Entity getParent() {
 		return parent;
 	}
@@ -131,9 +161,9 @@ public abstract class Entity {
 	}
 	
 	public Collection<Entity> getChildren() {
-		if (children==null)
+		if (children==null && serializedChildren==null)
 			return new HashSet<>();
-		return children;
+		return children();
 	}
 	
 	public void setQualifiedName(String qualifiedName) {
@@ -272,4 +302,14 @@ public abstract class Entity {
 		return this.location;
 	}
 
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(children==null && serializedChildren==null?null:children().toArray(new Entity[0]));
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		serializedChildren = (Entity[]) in.readObject();
+	}
 }
@@ -84,6 +84,63 @@ public class Expression implements Serializable{
 		deducedTypeFunctions = new ArrayList<>();
 	}
 
+	private static final int IS_SET = 1;
+	private static final int IS_DOT = 1 << 1;
+	private static final int IS_CALL = 1 << 2;
+	private static final int IS_LOGIC = 1 << 3;
+	private static final int IS_CREATE = 1 << 4;
+	private static final int IS_CAST = 1 << 5;
+	private static final int IS_THROW = 1 << 6;
+	private static final int IS_STATEMENT = 1 << 7;
+	private static final int DERIVE_TYPE_FROM_CHILD = 1 << 8;
+	private static final int HAS_TEXT = 1 << 9;
+
+	/**
+	 * Write the non-transient fields, the same fields kept by java serialization
+	 */
+	void writeTo(ExpressionCodec.Output out) {
+		int flags = (isSet ? IS_SET : 0) | (isDot ? IS_DOT : 0) | (isCall ? IS_CALL : 0)
+				| (isLogic ? IS_LOGIC : 0) | (isCreate ? IS_CREATE : 0) | (isCast ? IS_CAST : 0)
+				| (isThrow ? IS_THROW : 0) | (isStatement ? IS_STATEMENT : 0)
+				| (deriveTypeFromChild ? DERIVE_TYPE_FROM_CHILD : 0) | (text != null ? HAS_TEXT : 0);
+		out.writeVarint(flags);
+		out.writeInteger(id);
+		out.writeInteger(parentId);
+		out.writeInteger(deduceTypeBasedId);
+		out.writeInteger(referredEntityId);
+		out.writeInteger(location.line);
+		out.writeName(rawType);
+		out.writeName(identifier);
+		out.writeIntegers(deducedTypeVarsId);
+		out.writeIntegers(deducedTypeFunctionsId);
+		if (text != null)
+			out.writeString(text);
+	}
+
+	void readFrom(ExpressionCodec.Input in) {
+		int flags = (int) in.readVarint();
+		isSet = (flags & IS_SET) != 0;
+		isDot = (flags & IS_DOT) != 0;
+		isCall = (flags & IS_CALL) != 0;
+		isLogic = (flags & IS_LOGIC) != 0;
+		isCreate = (flags & IS_CREATE) != 0;
+		isCast = (flags & IS_CAST) != 0;
+		isThrow = (flags & IS_THROW) != 0;
+		isStatement = (flags & IS_STATEMENT) != 0;
+		deriveTypeFromChild = (flags & DERIVE_TYPE_FROM_CHILD) != 0;
+		id = in.readId();
+		parentId = in.readId();
+		deduceTypeBasedId = in.readId();
+		referredEntityId = in.readInteger();
+		location.line = in.readInteger();
+		rawType = in.readName();
+		identifier = in.readName();
+		deducedTypeVarsId = in.readIntegers();
+		deducedTypeFunctionsId = in.readIntegers();
+		if ((flags & HAS_TEXT) != 0)
+			text = in.readString();
+	}
+
 	public void reload(EntityRepo repo, ArrayList<Expression> expressionList) {
 		this.deducedTypeFunctions = new ArrayList<>();
 		this.deducedTypeVars = new ArrayList<>();
@@ -230,10 +287,14 @@ public class Expression implements Serializable{
 			setReferredEntity(func);
 			return;
 		}
-		MultiDeclareEntities m = new MultiDeclareEntities(func, bindingResolver.getRepo().generateId());
-		bindingResolver.getRepo().add(m);
-		for (int i = 1; i< funcs.size(); i++) {
-			m.add(funcs.get(i));
+		MultiDeclareEntities m;
+		/* the functions may be shared by the files resolved in parallel */
+		synchronized (bindingResolver.getRepo()) {
+			m = new MultiDeclareEntities(func, bindingResolver.getRepo().generateId());
+			bindingResolver.getRepo().add(m);
+			for (int i = 1; i< funcs.size(); i++) {
+				m.add(funcs.get(i));
+			}
 		}
 		setType(func.getType(), m, bindingResolver);
 		setReferredEntity(m);
@@ -0,0 +1,226 @@
+package depends.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary format of the expression lists spilled to disk.
+ * - ids and lines are written as (zigzag) varints
+ * - the names of GenericName are written as indexes of a string table
+ *   shared by all the records of the codec
+ * - the boolean properties of an expression are packed into one varint
+ * The string table is kept in memory, so a record could only be decoded by
+ * the codec which encoded it. It is safe to encode and decode in different threads.
+ */
+public class ExpressionCodec {
+	private ConcurrentHashMap<String, Integer> stringIds = new ConcurrentHashMap<>();
+	private volatile String[] strings = new String[1024];
+	private int stringCount = 0;
+
+	public byte[] encode(List<Expression> expressions) {
+		Output out = new Output(this);
+		out.writeVarint(expressions.size());
+		for (Expression expression : expressions) {
+			expression.writeTo(out);
+		}
+		return out.toByteArray();
+	}
+
+	public ArrayList<Expression> decode(ByteBuffer buffer) {
+		Input in = new Input(this, buffer);
+		int size = (int) in.readVarint();
+		ArrayList<Expression> expressions = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Expression expression = new Expression();
+			expression.readFrom(in);
+			expressions.add(expression);
+		}
+		return expressions;
+	}
+
+	public int stringCount() {
+		return stringCount;
+	}
+
+	private int stringId(String s) {
+		Integer id = stringIds.get(s);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = stringIds.get(s);
+			if (id != null)
+				return id;
+			String[] table = strings;
+			if (stringCount == table.length) {
+				table = Arrays.copyOf(table, table.length * 2);
+			}
+			table[stringCount] = s;
+			strings = table;
+			id = stringCount++;
+			stringIds.put(s, id);
+			return id;
+		}
+	}
+
+	private String string(int id) {
+		return strings[id];
+	}
+
+	public static class Output {
+		private ExpressionCodec codec;
+		private byte[] bytes = new byte[256];
+		private int size = 0;
+
+		Output(ExpressionCodec codec) {
+			this.codec = codec;
+		}
+
+		void writeByte(int b) {
+			if (size == bytes.length)
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			bytes[size++] = (byte) b;
+		}
+
+		void writeVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		/**
+		 * null is written as 0, others as zigzag(value)+1
+		 */
+		void writeInteger(Integer value) {
+			if (value == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(((((long) value) << 1) ^ (((long) value) >> 63)) + 1);
+		}
+
+		void writeIntegers(List<Integer> values) {
+			if (values == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(values.size() + 1);
+			for (Integer value : values) {
+				writeInteger(value);
+			}
+		}
+
+		void writeString(String s) {
+			byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+			writeVarint(utf8.length);
+			if (size + utf8.length > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + utf8.length));
+			System.arraycopy(utf8, 0, bytes, size, utf8.length);
+			size += utf8.length;
+		}
+
+		/**
+		 * null is written as 0, others as the string id of the name + 1,
+		 * followed by the arguments
+		 */
+		void writeName(GenericName name) {
+			if (name == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(codec.stringId(name.getName()) + 1);
+			if (name.arguments == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(name.arguments.size() + 1);
+			for (GenericName argument : name.arguments) {
+				writeName(argument);
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+
+	public static class Input {
+		private ExpressionCodec codec;
+		private ByteBuffer buffer;
+		/* the ids shared by expressions (parent id, deduce type based id) are the
+		 * same Integer objects after reload, the same as java serialization */
+		private HashMap<Integer, Integer> ids = new HashMap<>();
+
+		Input(ExpressionCodec codec, ByteBuffer buffer) {
+			this.codec = codec;
+			this.buffer = buffer;
+		}
+
+		long readVarint() {
+			long value = 0;
+			int shift = 0;
+			while (true) {
+				byte b = buffer.get();
+				value |= ((long) (b & 0x7F)) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+				shift += 7;
+			}
+		}
+
+		Integer readInteger() {
+			long value = readVarint();
+			if (value == 0)
+				return null;
+			value = value - 1;
+			return (int) ((value >>> 1) ^ -(value & 1));
+		}
+
+		Integer readId() {
+			Integer id = readInteger();
+			if (id == null)
+				return null;
+			Integer shared = ids.putIfAbsent(id, id);
+			return shared == null ? id : shared;
+		}
+
+		List<Integer> readIntegers() {
+			int size = (int) readVarint();
+			if (size == 0)
+				return null;
+			List<Integer> values = new ArrayList<>(size - 1);
+			for (int i = 0; i < size - 1; i++) {
+				values.add(readInteger());
+			}
+			return values;
+		}
+
+		String readString() {
+			int length = (int) readVarint();
+			byte[] utf8 = new byte[length];
+			buffer.get(utf8);
+			return new String(utf8, StandardCharsets.UTF_8);
+		}
+
+		GenericName readName() {
+			int id = (int) readVarint();
+			if (id == 0)
+				return null;
+			String name = codec.string(id - 1);
+			int size = (int) readVarint();
+			if (size == 0)
+				return GenericName.build(name);
+			List<GenericName> arguments = new ArrayList<>(size - 1);
+			for (int i = 0; i < size - 1; i++) {
+				arguments.add(readName());
+			}
+			return GenericName.build(name, arguments);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package depends.entity;
+
+import multilang.depends.util.file.TemporaryFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the expressions of containers are spilled to after parsing, and reloaded
+ * from when they are resolved or used to count relations.
+ * The store is bound to the temporary directory; a new one is created once
+ * the TemporaryFile is reset.
+ */
+public abstract class ExpressionStore {
+	private static volatile ExpressionStore inst = null;
+	protected TemporaryFile temporaryFile;
+
+	public static ExpressionStore getInstance() {
+		ExpressionStore current = inst;
+		if (current != null && current.temporaryFile == TemporaryFile.getInstance())
+			return current;
+		synchronized (ExpressionStore.class) {
+			if (inst != null && inst.temporaryFile == TemporaryFile.getInstance())
+				return inst;
+			if (inst != null)
+				inst.close();
+			inst = new MappedExpressionStore(TemporaryFile.getInstance());
+			return inst;
+		}
+	}
+
+	protected ExpressionStore(TemporaryFile temporaryFile) {
+		this.temporaryFile = temporaryFile;
+	}
+
+	/**
+	 * Save the expressions of the container; the expressions saved before are replaced
+	 */
+	public abstract void write(Integer containerId, List<Expression> expressions);
+
+	/**
+	 * @return the latest expressions saved of the container, or null if not exists
+	 */
+	public abstract ArrayList<Expression> read(Integer containerId);
+
+	public abstract void close();
+}
@@ -30,13 +30,15 @@ import depends.relations.IBindingResolver;
 import java.util.*;
 
 public class FileEntity extends TypeEntity {
+	private static final long serialVersionUID = 1L;
 	private List<Import> importedNames = new ArrayList<>();
 	private boolean isInProjectScope = false;
 	private Collection<Entity> importedRelationEntities = new ArrayList<>();
 	private Collection<Entity> importedFiles = new ArrayList<>();
 	private Collection<Entity> importedTypes = new ArrayList<>();
 	private List<TypeEntity> declaredTypes = new ArrayList<>();
-	private ImportedFileCollector importedFileCollector = null;
+	private transient ImportedFileCollector importedFileCollector = null;
+	private boolean importsInferred = false;
 	private boolean fileAsModule = false;
 	private String moduleName = "";
 
@@ -102,11 +104,25 @@ public class FileEntity extends TypeEntity {
 
 	@Override
 	public void inferLocalLevelEntities(IBindingResolver bindingResolver) {
+		if (!importsInferred)
+			resolveImports(bindingResolver);
+		super.inferLocalLevelEntities(bindingResolver);
+	}
+
+	/**
+	 * Resolve the imports ahead of the other entities, because the lookup of
+	 * other files may go through them. They will not be resolved again in inferLocalLevelEntities
+	 * @param bindingResolver
+	 */
+	public void inferImports(IBindingResolver bindingResolver) {
+		resolveImports(bindingResolver);
+		importsInferred = true;
+	}
+
+	private void resolveImports(IBindingResolver bindingResolver) {
 		this.importedRelationEntities = bindingResolver.getImportedRelationEntities(importedNames);
 		this.importedTypes = bindingResolver.getImportedTypes(importedNames,this);
 		this.importedFiles = bindingResolver.getImportedFiles(importedNames);
-
-		super.inferLocalLevelEntities(bindingResolver);
 	}
 
 	public boolean isInProjectScope() {
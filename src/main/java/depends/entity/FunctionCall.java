@@ -24,7 +24,10 @@ SOFTWARE.
 
 package depends.entity;
 
-public class FunctionCall {
+import java.io.Serializable;
+
+public class FunctionCall implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private GenericName rawName;
 	public FunctionCall(GenericName rawName){
 		this.rawName = rawName;
@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.List;
 
 public class FunctionEntity extends ContainerEntity{
+	private static final long serialVersionUID = 1L;
 	private List<GenericName> returnTypeIdentifiers = new ArrayList<>();
 	Collection<VarEntity> parameters;
     Collection<GenericName> throwTypesIdentifiers = new ArrayList<>(); 
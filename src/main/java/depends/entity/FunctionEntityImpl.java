@@ -3,6 +3,7 @@ package depends.entity;
 import depends.relations.IBindingResolver;
 
 public class FunctionEntityImpl extends FunctionEntity {
+	private static final long serialVersionUID = 1L;
 	Entity implementedFunction = null;
 	public FunctionEntityImpl() {
 		super();
@@ -1,6 +1,7 @@
 package depends.entity;
 
 public class FunctionEntityProto  extends FunctionEntity{
+	private static final long serialVersionUID = 1L;
 	public FunctionEntityProto() {
 		super();
 	}
@@ -3,6 +3,7 @@ package depends.entity;
 import java.io.Serializable;
 
 public class Location implements Serializable {
+	private static final long serialVersionUID = 1L;
     Integer line = null;
     public Integer getLine(){
         return line;
@@ -0,0 +1,129 @@
+package depends.entity;
+
+import multilang.depends.util.file.TemporaryFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The default expression store. Expression lists are encoded by ExpressionCodec and
+ * appended to a few memory-mapped segment files in the temporary directory;
+ * the offset of the latest record of each container is kept in an index by the container id.
+ * A record is decoded straight from the mapped buffer, no file is opened per container
+ * and the OS page cache decides what stays in memory.
+ * Re-spilling a container appends a new record, the old one is simply not referred anymore.
+ * It is safe to write and read in different threads.
+ */
+public class MappedExpressionStore extends ExpressionStore {
+	private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private ExpressionCodec codec = new ExpressionCodec();
+	private ConcurrentHashMap<Integer, Extent> index = new ConcurrentHashMap<>();
+	private volatile List<Segment> segments = new ArrayList<>();
+	private long size = 0;
+
+	private static class Segment {
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		int position = 0;
+
+		Segment(FileChannel channel, MappedByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+
+	private static class Extent {
+		final int segment;
+		final int offset;
+		final int length;
+
+		Extent(int segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	public MappedExpressionStore(TemporaryFile temporaryFile) {
+		super(temporaryFile);
+	}
+
+	@Override
+	public void write(Integer containerId, List<Expression> expressions) {
+		byte[] data = codec.encode(expressions);
+		try {
+			append(containerId, data);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public ArrayList<Expression> read(Integer containerId) {
+		Extent extent = index.get(containerId);
+		if (extent == null)
+			return null;
+		ByteBuffer buffer = segments.get(extent.segment).buffer.duplicate();
+		buffer.limit(extent.offset + extent.length);
+		buffer.position(extent.offset);
+		return codec.decode(buffer);
+	}
+
+	private synchronized void append(Integer containerId, byte[] data) throws IOException {
+		Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (segment == null || segment.position + data.length > segment.buffer.capacity()) {
+			segment = newSegment(Math.max(SEGMENT_SIZE, data.length));
+		}
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(segment.position);
+		buffer.put(data);
+		index.put(containerId, new Extent(segments.size() - 1, segment.position, data.length));
+		segment.position += data.length;
+		size += data.length;
+	}
+
+	private Segment newSegment(int capacity) throws IOException {
+		File path = new File(new File(temporaryFile.exprPath(0)).getParentFile(),
+				"segment-" + segments.size() + ".expr");
+		FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		Segment segment = new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+		List<Segment> grown = new ArrayList<>(segments);
+		grown.add(segment);
+		segments = grown;
+		return segment;
+	}
+
+	public int segmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * @return the bytes of the records written; the segment files are sparse
+	 */
+	public synchronized long diskSize() {
+		return size;
+	}
+
+	@Override
+	public synchronized void close() {
+		for (Segment segment : segments) {
+			try {
+				segment.channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		segments = new ArrayList<>();
+		index.clear();
+		size = 0;
+	}
+}
@@ -37,8 +37,11 @@ import java.util.List;
  * in C++, a function could be declared in different place with the same signature.
  */
 public class MultiDeclareEntities extends ContainerEntity {
-	List<Entity> entities = new ArrayList<>();
+	private static final long serialVersionUID = 1L;
+	/* guarded by this; the readers work on a copy */
+	private List<Entity> entities = new ArrayList<>();
 	private boolean containsTypeEntity = false;
+	public MultiDeclareEntities() {}
 	public MultiDeclareEntities(Entity entity, int id ) {
 		this.id = id;
 		setQualifiedName(entity.getQualifiedName());
@@ -48,30 +51,34 @@ public class MultiDeclareEntities extends ContainerEntity {
 
 	@Override
 	public void inferLocalLevelEntities(IBindingResolver bindingResolver) {
-		for (Entity entity:entities) {
+		for (Entity entity:getEntities()) {
 			entity.inferLocalLevelEntities(bindingResolver);
 		}
 	}
 
-	public void add(Entity entity) {
+	public synchronized void add(Entity entity) {
 		entity.setMutliDeclare(this);
 		if (entity instanceof TypeEntity) 
 			this.containsTypeEntity = true;
 		if (entity instanceof  MultiDeclareEntities){
-			((MultiDeclareEntities)entity).entities.forEach(e->add(e));
+			((MultiDeclareEntities)entity).getEntities().forEach(e->add(e));
 		}else {
 			entities.add(entity);
 		}
 	}
 
-	public List<Entity> getEntities() {
-		return entities;
+	public synchronized void remove(Entity entity) {
+		entities.remove(entity);
+	}
+
+	public synchronized List<Entity> getEntities() {
+		return new ArrayList<>(entities);
 	}
 
 	@Override
 	public Collection<Entity> getChildren() {
 		List<Entity> children = new ArrayList<>();
-		for (Entity entity:entities) {
+		for (Entity entity:getEntities()) {
 			children.addAll(entity.getChildren());
 		}
 		return children;
@@ -79,14 +86,14 @@ public class MultiDeclareEntities extends ContainerEntity {
 
 	@Override
 	public TypeEntity getType() {
-		for (Entity entity:entities) {
+		for (Entity entity:getEntities()) {
 			if(entity.getType()!=null);
 				return entity.getType();
 		}
 		return null;
 	}
 
-	public boolean isContainsTypeEntity() {
+	public synchronized boolean isContainsTypeEntity() {
 		return containsTypeEntity;
 	}
 
@@ -24,11 +24,23 @@ SOFTWARE.
 
 package depends.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
+/**
+ * Package is shared by the files under it, which may be parsed in different threads;
+ * so the children and names of the package are guarded by the package itself.
+ */
 public class PackageEntity extends TypeEntity {
+	private static final long serialVersionUID = 1L;
 	HashMap<String,Entity> entities	 = new HashMap<>();
+	/* the files of the package by their paths, so the names are looked up in the same order
+	 * whatever the ids of the files are (which are different in incremental analysis) */
+	private transient List<Entity> sortedFiles;
 	
 	public PackageEntity() {}
 
@@ -41,7 +53,7 @@ public class PackageEntity extends TypeEntity {
 		super(GenericName.build(rawName),  currentFile,id);
 	}
 
-	public Entity getChildOfName(String name) {
+	public synchronized Entity getChildOfName(String name) {
 		for (Entity child:this.getChildren()) {
 			if (child.getRawName().equals(name)) 
 				return child;
@@ -51,23 +63,55 @@ public class PackageEntity extends TypeEntity {
 		return null;
 	}
 
-	public void addChild(String moduleName, Entity entity) {
+	public synchronized void addChild(String moduleName, Entity entity) {
 		super.addChild(entity);
 		entities.put(moduleName, entity);
 		visibleNames.put(moduleName, entity);
 	}
-	
+
+	@Override
+	public synchronized void addChild(Entity child) {
+		super.addChild(child);
+		sortedFiles = null;
+	}
+
+	@Override
+	public synchronized void removeChild(Entity child) {
+		super.removeChild(child);
+		entities.values().removeIf(entity->entity==child);
+		sortedFiles = null;
+	}
+
+	private synchronized List<Entity> getSortedFiles() {
+		if (sortedFiles==null) {
+			List<Entity> files = new ArrayList<>();
+			for (Entity child:super.getChildren()) {
+				if (child instanceof FileEntity)
+					files.add(child);
+			}
+			files.sort(Comparator.comparing(Entity::getQualifiedName));
+			sortedFiles = files;
+		}
+		return sortedFiles;
+	}
+
+	@Override
+	public synchronized Collection<Entity> getChildren() {
+		return new ArrayList<>(super.getChildren());
+	}
+
 	@Override
 	public Entity getByName(String name, HashSet<Entity> searched) {
-		Entity entity = super.getByName(name, searched);
+		Entity entity;
+		synchronized (this) {
+			entity = super.getByName(name, searched);
+		}
 		if (entity!=null)
 			return entity;
-		for (Entity child:getChildren()) {
-			if (child instanceof FileEntity) {
-				if (searched.contains(child)) continue;
-				entity = child.getByName(name,searched);
-				if (entity!=null) return entity;
-			}
+		for (Entity child:getSortedFiles()) {
+			if (searched.contains(child)) continue;
+			entity = child.getByName(name,searched);
+			if (entity!=null) return entity;
 		}
 		return null;
 	}
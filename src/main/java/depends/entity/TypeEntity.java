@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.HashSet;
 
 public class TypeEntity extends ContainerEntity {
+	private static final long serialVersionUID = 1L;
 	static final public TypeEntity buildInType = new TypeEntity(GenericName.build("built-in"), null, -1);
 	static final public TypeEntity genericParameterType = new TypeEntity(GenericName.build("T"), null, -3);
 	Collection<TypeEntity> inheritedTypes = new ArrayList<>();
@@ -38,6 +39,7 @@ public class TypeEntity extends ContainerEntity {
 	Collection<GenericName> inhertedTypeIdentifiers;
 	Collection<GenericName> implementedIdentifiers;
 	TypeEntity inheritedType;
+	private boolean inheritedTypesInferred = false;
 	public TypeEntity() {}
 	public TypeEntity(GenericName simpleName, Entity parent, Integer id) {
 		super(simpleName, parent, id);
@@ -45,9 +47,38 @@ public class TypeEntity extends ContainerEntity {
 		implementedIdentifiers = new ArrayList<>();
 	}
 
+	/**
+	 * The shared types read from a snapshot are replaced by the ones of this run,
+	 * since they are compared by reference
+	 */
+	protected Object readResolve() {
+		if (getClass() != TypeEntity.class) return this;
+		if (buildInType.getId().equals(id) && buildInType.getRawName().equals(rawName)) return buildInType;
+		if (genericParameterType.getId().equals(id) && genericParameterType.getRawName().equals(rawName)) return genericParameterType;
+		return this;
+	}
+
 	@Override
 	public void inferLocalLevelEntities(IBindingResolver bindingResolver) {
-		inheritedTypes = new ArrayList<>();
+		if (!inheritedTypesInferred)
+			resolveInheritedTypes(bindingResolver);
+		super.inferLocalLevelEntities(bindingResolver);
+	}
+
+	/**
+	 * Resolve the inherited and implemented types ahead of the other entities.
+	 * They will not be resolved again in inferLocalLevelEntities
+	 * @param bindingResolver
+	 */
+	public void inferInheritedTypes(IBindingResolver bindingResolver) {
+		resolveInheritedTypes(bindingResolver);
+		inheritedTypesInferred = true;
+	}
+
+	/* The types are collected locally and then published, because the other
+	 * files may read them at the same time in parallel resolving */
+	private void resolveInheritedTypes(IBindingResolver bindingResolver) {
+		Collection<TypeEntity> inheritedTypes = new ArrayList<>();
 		Collection<Entity> r = identiferToEntities(bindingResolver, this.inhertedTypeIdentifiers);
 		if (r!=null) {
 			r.forEach(item -> {
@@ -60,8 +91,10 @@ public class TypeEntity extends ContainerEntity {
 			});
 		}
 		inheritedTypes.remove(this);
+		/* published before the implemented types are looked up, which may go through them */
+		this.inheritedTypes = inheritedTypes;
 
-		implementedTypes = new ArrayList<>();
+		Collection<TypeEntity> implementedTypes = new ArrayList<>();
 		r = identiferToEntities(bindingResolver, this.implementedIdentifiers);
 		if (r!=null) {
 				r.forEach(item -> {
@@ -76,7 +109,7 @@ public class TypeEntity extends ContainerEntity {
 		implementedTypes.remove(this);
 		if (inheritedTypes.size() > 0)
 			inheritedType = inheritedTypes.iterator().next();
-		super.inferLocalLevelEntities(bindingResolver);
+		this.implementedTypes = implementedTypes;
 	}
 
 	private Entity getTypeEntity(Entity item) {
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class VarEntity extends ContainerEntity {
+	private static final long serialVersionUID = 1L;
 	private GenericName rawType;
 	private TypeEntity type;
 	private List<FunctionCall> functionCalls;
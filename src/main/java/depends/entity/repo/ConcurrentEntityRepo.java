@@ -0,0 +1,150 @@
+package depends.entity.repo;
+
+import depends.entity.*;
+import multilang.depends.util.file.FileUtil;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Entity repo which could be shared by the parsing threads.
+ * - entities are kept in concurrent maps, no global lock is needed
+ * - entities with the same name are merged into MultiDeclareEntities atomically
+ * - files are ordered by their path, so sortedFileIterator() gives the same
+ *   order no matter how many threads are used to parse them
+ */
+public class ConcurrentEntityRepo extends SimpleIdGenerator implements EntityRepo {
+	private static final long serialVersionUID = 1L;
+	private ConcurrentMap<String, Entity> allEntitiesByName;
+	private DenseEntityStore allEntitiesById;
+	private ConcurrentNavigableMap<String, Entity> allFileEntitiesByPath;
+
+	public ConcurrentEntityRepo() {
+		allEntitiesByName = new ConcurrentHashMap<>();
+		allEntitiesById = new DenseEntityStore();
+		allFileEntitiesByPath = new ConcurrentSkipListMap<>();
+		add(TypeEntity.buildInType);
+	}
+
+	@Override
+	public Entity getEntity(String entityName) {
+		return allEntitiesByName.get(entityName);
+	}
+
+	@Override
+	public Entity getEntity(Integer entityId) {
+		if (entityId == null) return null;
+		return allEntitiesById.get(entityId);
+	}
+
+	@Override
+	public Entity getEntity(GenericName rawName) {
+		return this.getEntity(rawName.uniqName());
+	}
+
+	@Override
+	public void add(Entity entity) {
+		allEntitiesById.put(entity);
+		String name = entity.getRawName().uniqName();
+		if (entity.getQualifiedName() != null && !(entity.getQualifiedName().isEmpty())) {
+			name = entity.getQualifiedName();
+		}
+		/* merge() is atomic per name, so concurrent declarations of the same
+		 * name are all kept in the one MultiDeclareEntities of the name */
+		allEntitiesByName.merge(name, entity, this::mergeDeclaration);
+		if (entity.getParent() != null)
+			Entity.setParent(entity, entity.getParent());
+	}
+
+	private Entity mergeDeclaration(Entity existedEntity, Entity entity) {
+		if (existedEntity instanceof MultiDeclareEntities) {
+			((MultiDeclareEntities) existedEntity).add(entity);
+			return existedEntity;
+		}
+		MultiDeclareEntities eMultiDeclare = new MultiDeclareEntities(existedEntity, this.generateId());
+		eMultiDeclare.add(entity);
+		return eMultiDeclare;
+	}
+
+	@Override
+	public void remove(Entity entity) {
+		allEntitiesById.remove(entity);
+		String name = entity.getRawName().uniqName();
+		if (entity.getQualifiedName() != null && !(entity.getQualifiedName().isEmpty())) {
+			name = entity.getQualifiedName();
+		}
+		Entity existedEntity = allEntitiesByName.get(name);
+		if (existedEntity == entity) {
+			allEntitiesByName.remove(name);
+		} else if (existedEntity instanceof MultiDeclareEntities) {
+			MultiDeclareEntities multiDeclare = (MultiDeclareEntities) existedEntity;
+			multiDeclare.remove(entity);
+			if (multiDeclare.getEntities().size() == 1) {
+				Entity remained = multiDeclare.getEntities().get(0);
+				remained.setMutliDeclare(null);
+				allEntitiesByName.put(name, remained);
+			} else if (multiDeclare.getEntities().isEmpty()) {
+				allEntitiesByName.remove(name);
+			}
+		}
+		if (entity instanceof FileEntity)
+			allFileEntitiesByPath.remove(entity.getQualifiedName(), entity);
+	}
+
+	@Override
+	public Iterator<Entity> entityIterator() {
+		return allEntitiesById.iterator();
+	}
+
+	@Override
+	public void update(Entity entity) {
+	}
+
+	@Override
+	public Collection<Entity> getFileEntities() {
+		return allFileEntitiesByPath.values();
+	}
+
+	@Override
+	public Iterator<Entity> sortedFileIterator() {
+		return allFileEntitiesByPath.values().iterator();
+	}
+
+	@Override
+	public void clear() {
+		allEntitiesByName.clear();
+		allEntitiesById.clear();
+		allFileEntitiesByPath.clear();
+	}
+
+	@Override
+	public FileEntity getFileEntity(String fileFullPath) {
+		fileFullPath = FileUtil.uniqFilePath(fileFullPath);
+		Entity entity = this.getEntity(fileFullPath);
+		if (entity ==null) return null;
+		if (entity instanceof FileEntity) return (FileEntity) entity;
+		if (entity instanceof  MultiDeclareEntities){
+			MultiDeclareEntities multiDeclare = (MultiDeclareEntities) entity;
+			for (Entity theEntity: multiDeclare.getEntities()){
+				if (theEntity instanceof FileEntity){
+					return (FileEntity) theEntity;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void completeFile(String fileFullPath) {
+		FileEntity fileEntity = getFileEntity(fileFullPath);
+		// in case of parse error(throw exception), the file entity may not exists
+		if (fileEntity!=null) {
+			fileEntity.cacheAllExpressions();
+			allFileEntitiesByPath.put(fileEntity.getQualifiedName(), fileEntity);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package depends.entity.repo;
+
+import depends.entity.Entity;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Entities indexed by id. Ids generated by SimpleIdGenerator are dense integers
+ * from 0, so the entities are kept in chunks of arrays and found by the id
+ * directly, without boxing the id or walking a tree.
+ * The ids out of the dense range (for example, the built-in type -1) are kept in a map.
+ * It is safe to put and get entities in different threads.
+ */
+public class DenseEntityStore implements Iterable<Entity>, Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private volatile AtomicReferenceArray<AtomicReferenceArray<Entity>> chunks;
+	private ConcurrentSkipListMap<Integer, Entity> outOfRange;
+
+	public DenseEntityStore() {
+		chunks = new AtomicReferenceArray<>(16);
+		outOfRange = new ConcurrentSkipListMap<>();
+	}
+
+	public Entity get(int id) {
+		if (id < 0)
+			return outOfRange.get(id);
+		AtomicReferenceArray<AtomicReferenceArray<Entity>> directory = chunks;
+		int chunkIndex = id >>> CHUNK_BITS;
+		if (chunkIndex >= directory.length())
+			return null;
+		AtomicReferenceArray<Entity> chunk = directory.get(chunkIndex);
+		if (chunk == null)
+			return null;
+		return chunk.get(id & CHUNK_MASK);
+	}
+
+	public void put(Entity entity) {
+		int id = entity.getId();
+		if (id < 0) {
+			outOfRange.put(id, entity);
+			return;
+		}
+		chunkOf(id >>> CHUNK_BITS).set(id & CHUNK_MASK, entity);
+	}
+
+	public void remove(Entity entity) {
+		int id = entity.getId();
+		if (id < 0) {
+			outOfRange.remove(id, entity);
+			return;
+		}
+		AtomicReferenceArray<AtomicReferenceArray<Entity>> directory = chunks;
+		int chunkIndex = id >>> CHUNK_BITS;
+		if (chunkIndex >= directory.length() || directory.get(chunkIndex) == null)
+			return;
+		directory.get(chunkIndex).compareAndSet(id & CHUNK_MASK, entity, null);
+	}
+
+	private AtomicReferenceArray<Entity> chunkOf(int chunkIndex) {
+		AtomicReferenceArray<AtomicReferenceArray<Entity>> directory = chunks;
+		if (chunkIndex < directory.length()) {
+			AtomicReferenceArray<Entity> chunk = directory.get(chunkIndex);
+			if (chunk != null)
+				return chunk;
+		}
+		synchronized (this) {
+			directory = chunks;
+			if (chunkIndex >= directory.length()) {
+				int length = directory.length();
+				while (length <= chunkIndex)
+					length = length * 2;
+				AtomicReferenceArray<AtomicReferenceArray<Entity>> grown = new AtomicReferenceArray<>(length);
+				for (int i = 0; i < directory.length(); i++) {
+					grown.set(i, directory.get(i));
+				}
+				chunks = directory = grown;
+			}
+			AtomicReferenceArray<Entity> chunk = directory.get(chunkIndex);
+			if (chunk == null) {
+				chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+				directory.set(chunkIndex, chunk);
+			}
+			return chunk;
+		}
+	}
+
+	public synchronized void clear() {
+		chunks = new AtomicReferenceArray<>(16);
+		outOfRange.clear();
+	}
+
+	/**
+	 * Iterate the entities in id order
+	 */
+	@Override
+	public Iterator<Entity> iterator() {
+		return new DenseIterator();
+	}
+
+	private class DenseIterator implements Iterator<Entity> {
+		private Iterator<Entity> outOfRangeIterator = outOfRange.values().iterator();
+		private AtomicReferenceArray<AtomicReferenceArray<Entity>> directory = chunks;
+		private int nextId = 0;
+		private Entity next = null;
+
+		@Override
+		public boolean hasNext() {
+			if (next != null)
+				return true;
+			if (outOfRangeIterator.hasNext()) {
+				next = outOfRangeIterator.next();
+				return true;
+			}
+			while ((nextId >>> CHUNK_BITS) < directory.length()) {
+				AtomicReferenceArray<Entity> chunk = directory.get(nextId >>> CHUNK_BITS);
+				if (chunk == null) {
+					nextId = ((nextId >>> CHUNK_BITS) + 1) << CHUNK_BITS;
+					continue;
+				}
+				next = chunk.get(nextId & CHUNK_MASK);
+				nextId++;
+				if (next != null)
+					return true;
+			}
+			return false;
+		}
+
+		@Override
+		public Entity next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Entity result = next;
+			next = null;
+			return result;
+		}
+	}
+}
@@ -42,6 +42,12 @@ public interface EntityRepo extends IdGenerator {
 
 	void add(Entity entity);
 
+	/**
+	 * Remove the entity from the repo, including from the multi-declaration of its name.
+	 * The parent and children of the entity are not changed.
+	 */
+	void remove(Entity entity);
+
 	Iterator<Entity> entityIterator();
 
 	void update(Entity entity);
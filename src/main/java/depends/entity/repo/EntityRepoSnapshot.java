@@ -0,0 +1,257 @@
+package depends.entity.repo;
+
+import depends.entity.Entity;
+import depends.entity.TypeEntity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entity repo of a run (with the resolved relations) and the content hashes
+ * of the files parsed, which are persisted in a snapshot directory for the
+ * incremental analysis of the next run.
+ * The entities are written one by one as a table: a reference from an object to an
+ * entity is written as the index of the entity in the table, so the depth of the
+ * stream does not grow with the length of the paths in the entity graph.
+ */
+public class EntityRepoSnapshot {
+	private static final String SNAPSHOT_FILE = "depends.snapshot";
+	/* increased whenever the layout of the snapshot or of the serialized classes is changed */
+	private static final int FORMAT_VERSION = 2;
+
+	private String lang;
+	private String inputSrcPath;
+	private HashMap<String, String> fileHashes;
+	private EntityRepo repo;
+
+	public EntityRepoSnapshot(String lang, String inputSrcPath, Map<String, String> fileHashes, EntityRepo repo) {
+		this.lang = lang;
+		this.inputSrcPath = inputSrcPath;
+		this.fileHashes = new HashMap<>(fileHashes);
+		this.repo = repo;
+	}
+
+	/**
+	 * @return the snapshot in the directory, or null if not exists or not readable
+	 */
+	@SuppressWarnings("unchecked")
+	public static EntityRepoSnapshot load(String snapshotDir) {
+		File file = new File(snapshotDir, SNAPSHOT_FILE);
+		if (!file.exists())
+			return null;
+		try (EntityTableInputStream in = new EntityTableInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int version = in.readInt();
+			if (version != FORMAT_VERSION) {
+				System.err.println("snapshot " + file + " is of format " + version + " instead of " + FORMAT_VERSION
+						+ ", the files will be fully analysed");
+				return null;
+			}
+			String lang = in.readUTF();
+			String inputSrcPath = in.readUTF();
+			HashMap<String, String> fileHashes = (HashMap<String, String>) in.readObject();
+			EntityRepo repo = (EntityRepo) in.readObject();
+			in.readEntities();
+			return new EntityRepoSnapshot(lang, inputSrcPath, fileHashes, repo);
+		} catch (IOException | ReflectiveOperationException | RuntimeException e) {
+			System.err.println("snapshot " + file + " is not readable, the files will be fully analysed: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public void save(String snapshotDir) {
+		File dir = new File(snapshotDir);
+		dir.mkdirs();
+		File file = new File(dir, SNAPSHOT_FILE);
+		try (EntityTableOutputStream out = new EntityTableOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(lang);
+			out.writeUTF(inputSrcPath);
+			out.writeObject(fileHashes);
+			out.writeObject(repo);
+			out.writeEntities();
+		} catch (IOException | ReflectiveOperationException e) {
+			e.printStackTrace();
+			file.delete();
+		}
+	}
+
+	/**
+	 * A reference to the entity at the index of the entity table
+	 */
+	private static class EntityRef implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final int index;
+		final Class<? extends Entity> type;
+		final Integer id;
+
+		EntityRef(int index, Class<? extends Entity> type, Integer id) {
+			this.index = index;
+			this.type = type;
+			this.id = id;
+		}
+	}
+
+	/**
+	 * Every entity met is replaced by a reference and appended to the table; writeEntities
+	 * then writes the fields of the entities of the table in turn, which may append more.
+	 * An entity of the table is written through a copy of it, so that the references to
+	 * itself are replaced as well.
+	 */
+	private static class EntityTableOutputStream extends ObjectOutputStream {
+		private final IdentityHashMap<Entity, EntityRef> refs = new IdentityHashMap<>();
+		private final List<Entity> table = new ArrayList<>();
+		private Entity copyWritten = null;
+
+		EntityTableOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) {
+			if (!(obj instanceof Entity) || obj == copyWritten || isShared((Entity) obj))
+				return obj;
+			Entity entity = (Entity) obj;
+			EntityRef ref = refs.get(entity);
+			if (ref == null) {
+				ref = new EntityRef(table.size(), entity.getClass(), entity.getId());
+				refs.put(entity, ref);
+				table.add(entity);
+			}
+			return ref;
+		}
+
+		void writeEntities() throws IOException, ReflectiveOperationException {
+			for (int i = 0; i < table.size(); i++) {
+				Entity entity = table.get(i);
+				copyWritten = newInstance(entity.getClass());
+				copyFields(entity, copyWritten);
+				writeBoolean(true);
+				writeObject(copyWritten);
+			}
+			copyWritten = null;
+			writeBoolean(false);
+		}
+	}
+
+	private static class EntityTableInputStream extends ObjectInputStream {
+		private final List<Entity> table = new ArrayList<>();
+
+		EntityTableInputStream(InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (!(obj instanceof EntityRef))
+				return obj;
+			EntityRef ref = (EntityRef) obj;
+			while (table.size() <= ref.index)
+				table.add(null);
+			if (table.get(ref.index) == null) {
+				try {
+					Entity entity = newInstance(ref.type);
+					setId(entity, ref.id);
+					table.set(ref.index, entity);
+				} catch (ReflectiveOperationException e) {
+					throw new InvalidObjectException("entity " + ref.type.getName() + " could not be created: " + e);
+				}
+			}
+			return table.get(ref.index);
+		}
+
+		/* the fields of an entity are read into the instance referred before */
+		void readEntities() throws IOException, ReflectiveOperationException {
+			for (int i = 0; readBoolean(); i++) {
+				Entity copy = (Entity) readObject();
+				if (i < table.size() && table.get(i) != null)
+					copyFields(copy, table.get(i));
+			}
+		}
+	}
+
+	/* the shared types are written as they are, they are replaced by the ones of this run when read */
+	private static boolean isShared(Entity entity) {
+		return entity == TypeEntity.buildInType || entity == TypeEntity.genericParameterType;
+	}
+
+	private static Entity newInstance(Class<? extends Entity> type) throws ReflectiveOperationException {
+		Constructor<? extends Entity> constructor = type.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		return constructor.newInstance();
+	}
+
+	private static void setId(Entity entity, Integer id) throws ReflectiveOperationException {
+		Field field = Entity.class.getDeclaredField("id");
+		field.setAccessible(true);
+		field.set(entity, id);
+	}
+
+	private static void copyFields(Entity from, Entity to) throws ReflectiveOperationException {
+		for (Class<?> type = from.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+				field.setAccessible(true);
+				field.set(to, field.get(from));
+			}
+		}
+	}
+
+	/**
+	 * @return whether the snapshot is of the same language and source directory
+	 */
+	public boolean matches(String lang, String inputSrcPath) {
+		return this.lang.equals(lang) && this.inputSrcPath.equals(inputSrcPath);
+	}
+
+	public Map<String, String> getFileHashes() {
+		return fileHashes;
+	}
+
+	public EntityRepo getRepo() {
+		return repo;
+	}
+
+	public static String hashOf(String fileFullPath) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[8192];
+		try (InputStream in = new FileInputStream(fileFullPath)) {
+			int length;
+			while ((length = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, length);
+			}
+		}
+		StringBuilder hash = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hash.append(String.format("%02x", b));
+		}
+		return hash.toString();
+	}
+}
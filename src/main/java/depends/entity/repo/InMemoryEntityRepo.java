@@ -4,37 +4,19 @@ import depends.entity.*;
 import multilang.depends.util.file.FileUtil;
 
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class InMemoryEntityRepo extends SimpleIdGenerator implements EntityRepo {
+	private static final long serialVersionUID = 1L;
 
-	public class EntityＭapIterator implements Iterator<Entity>{
-
-		private Iterator<Entry<Integer, Entity>> entryIterator;
-
-		public EntityＭapIterator(Set<Entry<Integer, Entity>> entries) {
-			this.entryIterator = entries.iterator();
-		}
-		@Override
-		public boolean hasNext() {
-			return entryIterator.hasNext();
-		}
-
-		@Override
-		public Entity next() {
-			return entryIterator.next().getValue();
-		}
-		
-	}
-	
 	private Map<String, Entity> allEntieisByName;
-	private Map<Integer, Entity> allEntitiesById;
+	private DenseEntityStore allEntitiesById;
 	private List<Entity> allFileEntitiesByOrder;
 
 	public InMemoryEntityRepo() {
-		allEntieisByName = new TreeMap<>();
-		allEntitiesById = new TreeMap<>();
+		allEntieisByName = new ConcurrentHashMap<>();
+		allEntitiesById = new DenseEntityStore();
 		allFileEntitiesByOrder = new LinkedList<>();
 		add(TypeEntity.buildInType);
 	}
@@ -46,12 +28,13 @@ public class InMemoryEntityRepo extends SimpleIdGenerator implements EntityRepo
 
 	@Override
 	public Entity getEntity(Integer entityId) {
+		if (entityId == null) return null;
 		return allEntitiesById.get(entityId);
 	}
 
 	@Override
-	public void add(Entity entity) {
-		allEntitiesById.put(entity.getId(), entity);
+	public synchronized void add(Entity entity) {
+		allEntitiesById.put(entity);
 		String name = entity.getRawName().uniqName();
 		if (entity.getQualifiedName() != null && !(entity.getQualifiedName().isEmpty())) {
 			name = entity.getQualifiedName();
@@ -72,9 +55,34 @@ public class InMemoryEntityRepo extends SimpleIdGenerator implements EntityRepo
 			Entity.setParent(entity, entity.getParent());
 	}
 
+	@Override
+	public synchronized void remove(Entity entity) {
+		allEntitiesById.remove(entity);
+		String name = entity.getRawName().uniqName();
+		if (entity.getQualifiedName() != null && !(entity.getQualifiedName().isEmpty())) {
+			name = entity.getQualifiedName();
+		}
+		Entity existedEntity = allEntieisByName.get(name);
+		if (existedEntity == entity) {
+			allEntieisByName.remove(name);
+		} else if (existedEntity instanceof MultiDeclareEntities) {
+			MultiDeclareEntities multiDeclare = (MultiDeclareEntities) existedEntity;
+			multiDeclare.remove(entity);
+			if (multiDeclare.getEntities().size() == 1) {
+				Entity remained = multiDeclare.getEntities().get(0);
+				remained.setMutliDeclare(null);
+				allEntieisByName.put(name, remained);
+			} else if (multiDeclare.getEntities().isEmpty()) {
+				allEntieisByName.remove(name);
+			}
+		}
+		if (entity instanceof FileEntity)
+			allFileEntitiesByOrder.remove(entity);
+	}
+
 	@Override
 	public Iterator<Entity> entityIterator() {
-		return new EntityＭapIterator(allEntitiesById.entrySet());
+		return allEntitiesById.iterator();
 	}
 
 	
@@ -105,7 +113,7 @@ public class InMemoryEntityRepo extends SimpleIdGenerator implements EntityRepo
 	}
 
 	@Override
-	public FileEntity getFileEntity(String fileFullPath) {
+	public synchronized FileEntity getFileEntity(String fileFullPath) {
 		fileFullPath = FileUtil.uniqFilePath(fileFullPath);
 		Entity entity = this.getEntity(fileFullPath);
 		if (entity ==null) return null;
@@ -127,7 +135,9 @@ public class InMemoryEntityRepo extends SimpleIdGenerator implements EntityRepo
 		// in case of parse error(throw exception), the file entity may not exists
 		if (fileEntity!=null) {
 			fileEntity.cacheAllExpressions();
-			allFileEntitiesByOrder.add(fileEntity);
+			synchronized (this) {
+				allFileEntitiesByOrder.add(fileEntity);
+			}
 		}
 	}
 }
@@ -1,10 +1,14 @@
 package depends.entity.repo;
 
-public class SimpleIdGenerator implements IdGenerator {
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
-	private int nextAvaliableIndex;
+public class SimpleIdGenerator implements IdGenerator, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private AtomicInteger nextAvaliableIndex;
 	public SimpleIdGenerator() {
-		nextAvaliableIndex = 0;
+		nextAvaliableIndex = new AtomicInteger(0);
 	}
 	/**
 	 * Generate a global unique ID for entity
@@ -12,7 +16,7 @@ public class SimpleIdGenerator implements IdGenerator {
 	 */
 	@Override
 	public Integer generateId() {
-		return nextAvaliableIndex++;
+		return nextAvaliableIndex.getAndIncrement();
 	}
 
 }
@@ -24,11 +24,17 @@ SOFTWARE.
 
 package depends.extractor;
 
+import depends.entity.CandidateTypes;
 import depends.entity.Entity;
 import depends.entity.FileEntity;
+import depends.entity.FunctionEntity;
+import depends.entity.MultiDeclareEntities;
+import depends.entity.PackageEntity;
 import depends.entity.repo.BuiltInType;
 import depends.entity.repo.EntityRepo;
+import depends.entity.repo.EntityRepoSnapshot;
 import depends.entity.repo.InMemoryEntityRepo;
+import depends.relations.RelationList;
 import depends.relations.ImportLookupStrategy;
 import depends.relations.IBindingResolver;
 import multilang.depends.util.file.FileTraversal;
@@ -41,9 +47,18 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 abstract public class AbstractLangProcessor {
 
@@ -90,6 +105,13 @@ abstract public class AbstractLangProcessor {
 	private String[] excludes;
 	private Set<UnsolvedBindings> potentialExternalDependencies;
 	private List<String> includePaths;
+	private int threads = 1;
+	private boolean sharedParserCache = false;
+	private boolean twoStageParse = true;
+	private final AtomicInteger twoStageParses = new AtomicInteger();
+	private final AtomicInteger llFallbacks = new AtomicInteger();
+	private List<String> collectedFiles = new ArrayList<>();
+	private Collection<Entity> rebuiltFiles = null;
 	private static Logger logger = LoggerFactory.getLogger(AbstractLangProcessor.class);
 	
 	public AbstractLangProcessor() {
@@ -130,6 +152,228 @@ abstract public class AbstractLangProcessor {
 		return entityRepo;
 	}
 
+	/**
+	 * Build dependencies based on the snapshot of the previous run. The entity repo of
+	 * the processor should be the repo of the snapshot. Only the changed and added files,
+	 * and the files depending on the changed or deleted files (through imports or relations,
+	 * directly or not) are parsed and resolved again; the entities of the other files and
+	 * their relations are kept. If files are added, or the changed files declare names which
+	 * they did not declare before, all files are analysed again, because a name which was not
+	 * resolved before could be resolved to the new ones.
+	 * The files re-analysed are given by getRebuiltFiles(), the relations of them
+	 * should be computed again.
+	 */
+	public EntityRepo buildDependencies(String inputDir, String[] includeDir, String[] excludes, IBindingResolver bindingResolver,
+			EntityRepoSnapshot snapshot) {
+		this.inputSrcPath = inputDir;
+		this.includeDirs = includeDir;
+		this.excludes = excludes;
+		this.bindingResolver = bindingResolver;
+		List<String> files = collectFiles();
+		collectedFiles = files;
+		Map<String, String> previousHashes = snapshot.getFileHashes();
+		Set<String> changedFiles = new HashSet<>();
+		List<String> filesToParse = new ArrayList<>();
+		boolean filesAdded = false;
+		for (String file : files) {
+			String path = FileUtil.uniqFilePath(file);
+			String hash = hashOf(path);
+			if (hash == null || !hash.equals(previousHashes.get(path))) {
+				changedFiles.add(path);
+				filesToParse.add(file);
+				if (!previousHashes.containsKey(path))
+					filesAdded = true;
+			}
+		}
+		Set<String> existedFiles = new HashSet<>();
+		files.forEach(file -> existedFiles.add(FileUtil.uniqFilePath(file)));
+		for (String path : previousHashes.keySet()) {
+			if (!existedFiles.contains(path))
+				changedFiles.add(path);
+		}
+		boolean namesAdded = false;
+		if (!filesAdded) {
+			Set<Entity> staleFiles = collectDependentFiles(changedFiles);
+			for (Entity file : staleFiles) {
+				String path = file.getQualifiedName();
+				if (existedFiles.contains(path) && !changedFiles.contains(path))
+					filesToParse.add(path);
+			}
+			/* parsed and resolved in the same order as a full run, since the lookup of an ambiguous name may depend on it */
+			Map<String, Integer> order = new HashMap<>();
+			for (String file : files)
+				order.put(FileUtil.uniqFilePath(file), order.size());
+			filesToParse.sort(Comparator.comparing(file -> order.get(FileUtil.uniqFilePath(file))));
+			System.out.println("Incremental analysis: " + changedFiles.size() + " files changed, "
+					+ filesToParse.size() + " of " + files.size() + " files to be parsed again");
+			Set<String> previousNames = declaredNamesOf(changedFiles);
+			staleFiles.forEach(file -> removeFileEntities(file));
+			parseFiles(filesToParse);
+			namesAdded = !previousNames.containsAll(declaredNamesOf(changedFiles));
+		}
+		if (filesAdded || namesAdded) {
+			System.out.println("Incremental analysis: new " + (filesAdded ? "files are" : "names are declared")
+					+ ", all files to be parsed again");
+			new ArrayList<>(entityRepo.getFileEntities()).forEach(file -> removeFileEntities(file));
+			filesToParse = new ArrayList<>(files);
+			parseFiles(filesToParse);
+		}
+		markAllEntitiesScope();
+		List<Entity> rebuilt = new ArrayList<>();
+		for (String path : filesToParse) {
+			FileEntity fileEntity = entityRepo.getFileEntity(path);
+			if (fileEntity != null)
+				rebuilt.add(fileEntity);
+		}
+		this.rebuiltFiles = rebuilt;
+		System.out.println("Resolve types and bindings of variables, methods and expressions....");
+		this.potentialExternalDependencies = bindingResolver.resolveBindingsOf(rebuilt, this.isEagerExpressionResolve());
+		System.out.println("types and bindings resolved successfully...");
+		return entityRepo;
+	}
+
+	/**
+	 * The files (in the repo) which are changed or depend on the changed ones, directly or not
+	 */
+	private Set<Entity> collectDependentFiles(Set<String> changedFiles) {
+		Map<Entity, Set<Entity>> dependents = new HashMap<>();
+		Set<Entity> result = new LinkedHashSet<>();
+		for (Entity file : entityRepo.getFileEntities()) {
+			if (changedFiles.contains(file.getQualifiedName()))
+				result.add(file);
+			Set<Entity> dependencies = new HashSet<>();
+			collectDependencies(file, dependencies);
+			for (Entity dependency : dependencies) {
+				if (dependency != file)
+					dependents.computeIfAbsent(dependency, k -> new HashSet<>()).add(file);
+			}
+		}
+		List<Entity> queue = new ArrayList<>(result);
+		for (int i = 0; i < queue.size(); i++) {
+			for (Entity dependent : dependents.getOrDefault(queue.get(i), new HashSet<>())) {
+				if (result.add(dependent))
+					queue.add(dependent);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The names declared by the files which could be referred by other files; the local
+	 * entities of functions are not included
+	 */
+	private Set<String> declaredNamesOf(Set<String> files) {
+		Set<String> names = new HashSet<>();
+		for (String path : files) {
+			FileEntity file = entityRepo.getFileEntity(path);
+			if (file != null)
+				collectDeclaredNames(file, names);
+		}
+		return names;
+	}
+
+	private void collectDeclaredNames(Entity entity, Set<String> names) {
+		for (Entity child : entity.getChildren()) {
+			names.add(child.getQualifiedName());
+			if (!(child instanceof FunctionEntity))
+				collectDeclaredNames(child, names);
+		}
+	}
+
+	private void collectDependencies(Entity entity, Set<Entity> files) {
+		if (entity instanceof FileEntity) {
+			FileEntity file = (FileEntity) entity;
+			file.getImportedFiles().forEach(e -> addFileOf(e, files));
+			file.getImportedTypes().forEach(e -> addFileOf(e, files));
+			file.getImportedRelationEntities().forEach(e -> addFileOf(e, files));
+		}
+		RelationList relations = entity.relationList();
+		if (relations != null) {
+			for (int i = 0; i < relations.size(); i++) {
+				addFileOf(relations.target(i), files);
+			}
+		}
+		for (Entity child : entity.getChildren()) {
+			collectDependencies(child, files);
+		}
+	}
+
+	private void addFileOf(Entity entity, Set<Entity> files) {
+		if (entity == null)
+			return;
+		if (entity instanceof CandidateTypes) {
+			((CandidateTypes) entity).getCandidateTypes().forEach(e -> addFileOf(e, files));
+		} else if (entity instanceof MultiDeclareEntities) {
+			((MultiDeclareEntities) entity).getEntities().forEach(e -> addFileOf(e, files));
+		} else {
+			Entity file = entity.getAncestorOfType(FileEntity.class);
+			if (file != null)
+				files.add(file);
+		}
+	}
+
+	private void removeFileEntities(Entity file) {
+		Entity parent = file.getParent();
+		removeEntities(file);
+		if (parent != null)
+			parent.removeChild(file);
+		/* a package without any file would not exist in a full run */
+		while (parent instanceof PackageEntity && parent.getChildren().isEmpty()) {
+			Entity grandParent = parent.getParent();
+			entityRepo.remove(parent);
+			if (grandParent != null)
+				grandParent.removeChild(parent);
+			parent = grandParent;
+		}
+	}
+
+	private void removeEntities(Entity entity) {
+		for (Entity child : entity.getChildren()) {
+			removeEntities(child);
+		}
+		entityRepo.remove(entity);
+	}
+
+	private String hashOf(String path) {
+		try {
+			return EntityRepoSnapshot.hashOf(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * The content hashes of the files of the latest build
+	 */
+	public Map<String, String> getFileHashes() {
+		Map<String, String> fileHashes = new HashMap<>();
+		for (String file : collectedFiles) {
+			String path = FileUtil.uniqFilePath(file);
+			String hash = hashOf(path);
+			if (hash != null)
+				fileHashes.put(path, hash);
+		}
+		return fileHashes;
+	}
+
+	/**
+	 * @return the files parsed and resolved by the incremental build, or null if all files are
+	 */
+	public Collection<Entity> getRebuiltFiles() {
+		return rebuiltFiles;
+	}
+
+	/**
+	 * Whether the languages could be analysed incrementally. The languages resolving
+	 * expressions eagerly change the entities of other files during resolving,
+	 * and the implementation links (c/c++) depend on all files, so they are always
+	 * analysed fully.
+	 */
+	public boolean supportIncrementalBuild() {
+		return !isEagerExpressionResolve() && !supportCallAsImpl();
+	}
+
 	private void markAllEntitiesScope() {
 		entityRepo.getFileEntities().stream().forEach(entity -> {
 			Entity file = entity.getAncestorOfType(FileEntity.class);
@@ -159,7 +403,14 @@ abstract public class AbstractLangProcessor {
 
 	private final void parseAllFiles() {
 		System.out.println("Start parsing files...");
-		Set<String> phase2Files = new HashSet<>();
+		collectedFiles = collectFiles();
+		parseFiles(collectedFiles);
+		System.out.println("all files procceed successfully...");
+
+	}
+
+	private List<String> collectFiles() {
+		List<String> files = new ArrayList<>();
 		FileTraversal fileTransversal = new FileTraversal(new FileTraversal.IFileVisitor() {
 			@Override
 			public void visit(File file) {
@@ -167,7 +418,7 @@ abstract public class AbstractLangProcessor {
 				if (!fileFullPath.startsWith(inputSrcPath)) {
 					return;
 				}
-				parseFile(fileFullPath, phase2Files);
+				files.add(fileFullPath);
 			}
 
 		});
@@ -176,20 +427,55 @@ abstract public class AbstractLangProcessor {
 			fileTransversal.excludeFilter(this.excludes);
 		}
 		fileTransversal.travers(this.inputSrcPath);
-		for (String f : phase2Files) {
-			parseFile(f, phase2Files);
-		}
-		System.out.println("all files procceed successfully...");
+		return files;
+	}
+
+	private void parseFiles(List<String> files) {
+		Set<String> phase2Files = ConcurrentHashMap.newKeySet();
+		twoStageParses.set(0);
+		llFallbacks.set(0);
+		parseFiles(files, phase2Files);
+		parseFiles(new ArrayList<>(phase2Files), phase2Files);
+		if (twoStageParses.get() > 0)
+			System.out.println(llFallbacks.get() + " of " + twoStageParses.get() + " files were parsed again in LL mode after SLL failed");
+	}
 
+	/**
+	 * Parse the files one by one, or with a work-stealing pool if more than one
+	 * thread is configured. Phase 2 files are collected into phase2Files.
+	 * @param files
+	 * @param phase2Files
+	 */
+	private void parseFiles(List<String> files, Set<String> phase2Files) {
+		if (threads <= 1) {
+			for (String file : files) {
+				parseFile(file, phase2Files);
+			}
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.submit(() -> files.parallelStream().forEach(file -> parseFile(file, phase2Files))).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
 	}
 
 	protected void parseFile(String fileFullPath, Set<String> phase2Files) {
 		FileParser fileParser = createFileParser();
+		fileParser.setTwoStageParse(twoStageParse);
 		try {
 			if (fileParser.isPhase2Files(fileFullPath)){
 				phase2Files.add(fileFullPath);
 			}else {
 				fileParser.parse(fileFullPath);
+				twoStageParses.addAndGet(fileParser.getTwoStageParses());
+				llFallbacks.addAndGet(fileParser.getLLFallbacks());
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -199,7 +485,7 @@ abstract public class AbstractLangProcessor {
 		}
 	}
 
-	public List<String> includePaths() {
+	public synchronized List<String> includePaths() {
 		if (this.includePaths ==null) {
 			this.includePaths = buildIncludePath();
 		}
@@ -229,6 +515,57 @@ abstract public class AbstractLangProcessor {
 		return this.entityRepo;
 	}
 
+	/**
+	 * Replace the entity repo. It should be called before the binding resolver
+	 * and file parsers are created.
+	 * @param entityRepo
+	 */
+	public void setEntityRepo(EntityRepo entityRepo) {
+		this.entityRepo = entityRepo;
+	}
+
+	/**
+	 * The number of threads used to parse files. 1 (default) means parse in the
+	 * current thread.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Share a bounded ANTLR prediction cache between the parses of files
+	 * (see ParserPredictionCache), for the ANTLR-based parsers which support it
+	 * @param sharedParserCache
+	 */
+	public void setSharedParserCache(boolean sharedParserCache) {
+		this.sharedParserCache = sharedParserCache;
+	}
+
+	public boolean isSharedParserCache() {
+		return sharedParserCache;
+	}
+
+	/**
+	 * Parse in SLL mode first, and in LL mode only for the files SLL fails
+	 * (default), for the ANTLR-based parsers (see FileParser.parseTree)
+	 * @param twoStageParse
+	 */
+	public void setTwoStageParse(boolean twoStageParse) {
+		this.twoStageParse = twoStageParse;
+	}
+
+	/**
+	 * @return the number of files which were parsed again in LL mode in the last parse
+	 */
+	public int getLLFallbacks() {
+		return llFallbacks.get();
+	}
+
 
 	public abstract List<String> supportedRelations();
 
@@ -29,9 +29,33 @@ import depends.entity.repo.EntityRepo;
 import multilang.depends.util.file.FileUtil;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 public abstract class FileParser {
+	/* files being parsed, with the thread parsing them */
+	private static final ConcurrentHashMap<String, FileInProgress> filesInProgress = new ConcurrentHashMap<>();
+	/* the file each thread is waiting for; guarded by filesInProgress */
+	private static final HashMap<Thread, FileInProgress> waitingFor = new HashMap<>();
 	protected EntityRepo entityRepo;
+	private boolean twoStageParse = true;
+	private int twoStageParses = 0;
+	private int llFallbacks = 0;
+
+	private static class FileInProgress {
+		final Thread owner = Thread.currentThread();
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+	}
 
 	/**
 	 * parse files
@@ -40,17 +64,56 @@ public abstract class FileParser {
 	 */
 	public final void parse(String filePath) throws IOException{
 		filePath = FileUtil.uniqFilePath(filePath);
-		/* If file already exist, skip it */
-		FileEntity fileEntity = entityRepo.getFileEntity(filePath);
-		if (fileEntity!=null) {
-			System.out.println("already parsed " + filePath + "...skip");
-			if (!fileEntity.isInProjectScope())
-				fileEntity.setInProjectScope(true);
-		}else {
-			System.out.println("parsing " + filePath + "...");
-			parseFile(filePath);
-			entityRepo.completeFile(filePath);
+		FileInProgress inProgress = new FileInProgress();
+		FileInProgress existing = filesInProgress.putIfAbsent(filePath, inProgress);
+		/* If file is being parsed by another thread, wait until it is parsed, so that
+		 * the caller reads the complete file (e.g. its macros or imports) */
+		if (existing!=null && existing.owner!=Thread.currentThread() && !waitFor(existing)) {
+			System.out.println("parsing in another thread " + filePath + "...skip");
+			return;
+		}
+		try {
+			/* If file already exist, skip it */
+			FileEntity fileEntity = entityRepo.getFileEntity(filePath);
+			if (fileEntity!=null) {
+				System.out.println("already parsed " + filePath + "...skip");
+				if (!fileEntity.isInProjectScope())
+					fileEntity.setInProjectScope(true);
+			}else {
+				System.out.println("parsing " + filePath + "...");
+				parseFile(filePath);
+				entityRepo.completeFile(filePath);
+			}
+		}finally {
+			if (existing==null) {
+				filesInProgress.remove(filePath);
+				inProgress.done.complete(null);
+			}
+		}
+	}
+
+	/**
+	 * Wait for the file parsed by another thread. If that thread is (transitively) waiting 
+	 * for a file of this thread, as with cyclic includes, it does not wait, and the file 
+	 * is skipped as it is by a nested parse of a file in one thread.
+	 * @return whether it has waited
+	 */
+	private boolean waitFor(FileInProgress file) {
+		synchronized (filesInProgress) {
+			for (FileInProgress next = file; next != null; next = waitingFor.get(next.owner)) {
+				if (next.owner == Thread.currentThread())
+					return false;
+			}
+			waitingFor.put(Thread.currentThread(), file);
 		}
+		try {
+			file.done.join();
+		} finally {
+			synchronized (filesInProgress) {
+				waitingFor.remove(Thread.currentThread());
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -64,4 +127,52 @@ public abstract class FileParser {
 		return false;
 	}
 
+	/**
+	 * Parse the tokens by the start rule of the grammar. In two-stage parse
+	 * (default), the tokens are parsed in SLL prediction mode with
+	 * BailErrorStrategy first, which is much faster and gives the same tree for
+	 * valid code; only if SLL fails (a syntax error, or an input which needs the
+	 * full LL prediction), the tokens are rewound and parsed again in LL mode
+	 * with the default error strategy.
+	 */
+	protected <P extends Parser, T extends ParserRuleContext> T parseTree(P parser, Function<P, T> startRule) {
+		if (!twoStageParse)
+			return startRule.apply(parser);
+		twoStageParses++;
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		parser.setErrorHandler(new BailErrorStrategy());
+		parser.removeErrorListeners();
+		try {
+			return startRule.apply(parser);
+		} catch (ParseCancellationException e) {
+			llFallbacks++;
+			parser.reset();
+			parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			return startRule.apply(parser);
+		}
+	}
+
+	/**
+	 * @param twoStageParse parse in SLL mode first, and in LL mode only if SLL fails (see parseTree)
+	 */
+	public void setTwoStageParse(boolean twoStageParse) {
+		this.twoStageParse = twoStageParse;
+	}
+
+	/**
+	 * @return the number of files parsed in two stages by this parser
+	 */
+	public int getTwoStageParses() {
+		return twoStageParses;
+	}
+
+	/**
+	 * @return the number of files which were parsed again in LL mode after SLL failed
+	 */
+	public int getLLFallbacks() {
+		return llFallbacks;
+	}
+
 }
@@ -176,12 +176,14 @@ public abstract class HandlerContext {
 	}
 	
 	public ContainerEntity globalScope() {
-		Entity global = entityRepo.getEntity(EntityRepo.GLOBAL_SCOPE_NAME);
-		if (global==null) {
-			global = new PackageEntity(EntityRepo.GLOBAL_SCOPE_NAME,idGenerator.generateId());
-			addToRepo(global);
+		synchronized (entityRepo) {
+			Entity global = entityRepo.getEntity(EntityRepo.GLOBAL_SCOPE_NAME);
+			if (global==null) {
+				global = new PackageEntity(EntityRepo.GLOBAL_SCOPE_NAME,idGenerator.generateId());
+				addToRepo(global);
+			}
+			return (ContainerEntity)global;
 		}
-		return (ContainerEntity)global;
 	}
 
 	public Entity latestValidContainer() {
@@ -0,0 +1,77 @@
+package depends.extractor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+/**
+ * The ANTLR prediction cache (the DFA of the grammar and the prediction
+ * contexts) shared by the parses of all files of a grammar, so that the
+ * prediction is not warmed up from zero for each file.
+ * The DFA grows with the variety of the code parsed, so it is bounded: the
+ * size is checked every CHECK_INTERVAL parses, and the cache is reset when
+ * there are more than maxDfaStates states.
+ * The DFA is thread-safe in ANTLR runtime; a parse running during a reset keeps
+ * the cache it started with.
+ */
+public class ParserPredictionCache {
+	public static final int DEFAULT_MAX_DFA_STATES = 200000;
+	private static final int CHECK_INTERVAL = 64;
+	private final int maxDfaStates;
+	private volatile PredictionContextCache contextCache = new PredictionContextCache();
+	private final AtomicInteger parses = new AtomicInteger();
+	private final AtomicInteger resets = new AtomicInteger();
+
+	public ParserPredictionCache() {
+		this(DEFAULT_MAX_DFA_STATES);
+	}
+
+	public ParserPredictionCache(int maxDfaStates) {
+		this.maxDfaStates = maxDfaStates;
+	}
+
+	/**
+	 * Set an interpreter of the shared cache to the parser
+	 * @return the interpreter, which should be passed to parsed() after the parse
+	 */
+	public ParserATNSimulator install(Parser parser) {
+		ParserATNSimulator interpreter = new ParserATNSimulator(parser, parser.getATN(),
+				parser.getInterpreter().decisionToDFA, contextCache);
+		parser.setInterpreter(interpreter);
+		return interpreter;
+	}
+
+	public void parsed(ParserATNSimulator interpreter) {
+		if (parses.incrementAndGet() % CHECK_INTERVAL != 0)
+			return;
+		if (dfaStates(interpreter.decisionToDFA) > maxDfaStates)
+			reset(interpreter);
+	}
+
+	private synchronized void reset(ParserATNSimulator interpreter) {
+		if (dfaStates(interpreter.decisionToDFA) <= maxDfaStates)
+			return;
+		interpreter.clearDFA();
+		contextCache = new PredictionContextCache();
+		resets.incrementAndGet();
+	}
+
+	private static int dfaStates(DFA[] decisionToDFA) {
+		int states = 0;
+		for (DFA dfa : decisionToDFA) {
+			states += dfa.states.size();
+		}
+		return states;
+	}
+
+	public int getParses() {
+		return parses.get();
+	}
+
+	public int getResets() {
+		return resets.get();
+	}
+}
@@ -30,6 +30,7 @@ import depends.extractor.FileParser;
 import depends.extractor.cpp.cdt.CdtCppFileParser;
 import depends.extractor.cpp.cdt.PreprocessorHandler;
 import depends.relations.ImportLookupStrategy;
+import multilang.depends.util.file.TemporaryFile;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +43,7 @@ public class CppProcessor extends AbstractLangProcessor {
 	PreprocessorHandler preprocessorHandler = null;
 
 	MacroRepo macroRepo = null;
+	private boolean prescanIncludes = false;
 
 	public CppProcessor() {
 		super();
@@ -58,15 +60,24 @@ public class CppProcessor extends AbstractLangProcessor {
 	}
 
 	@Override
-	public FileParser createFileParser() {
+	public synchronized FileParser createFileParser() {
 		if (macroRepo == null) {
-			macroRepo = new MacroEhcacheRepo(entityRepo);
+			macroRepo = new MacroMappedRepo(TemporaryFile.getInstance());
 			macroRepo.buildDefaultMap(super.includePaths());
 		}
 		if (preprocessorHandler==null) {
 			preprocessorHandler = new PreprocessorHandler(super.inputSrcPath,super.includePaths());
 		}
-		return new CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver, macroRepo);
+		return new CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver, macroRepo, prescanIncludes);
+	}
+
+	/**
+	 * Find the included files and macros of each file by a preprocessor-only prescan, 
+	 * so that each file is fully parsed once (see CdtCppFileParser)
+	 * @param prescanIncludes
+	 */
+	public void setPrescanIncludes(boolean prescanIncludes) {
+		this.prescanIncludes = prescanIncludes;
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package depends.extractor.cpp;
 
+import depends.entity.Entity;
 import depends.entity.repo.EntityRepo;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
@@ -23,8 +24,10 @@ public class MacroEhcacheRepo extends MacroRepo {
 
 	@Override
 	public Map<String, String> get(String incl) {
-		Integer fileId = entityRepo.getEntity(incl).getId();
-		Element cacheElement = cache.get(buildKey(fileId));
+		Entity fileEntity = entityRepo.getEntity(incl);
+		if (fileEntity == null)
+			return new HashMap<>();
+		Element cacheElement = cache.get(buildKey(fileEntity.getId()));
 		if (cacheElement ==null)
 			return new HashMap<>();
 		@SuppressWarnings("unchecked")
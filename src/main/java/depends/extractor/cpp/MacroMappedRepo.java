@@ -0,0 +1,332 @@
+package depends.extractor.cpp;
+
+import multilang.depends.util.file.TemporaryFile;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The default macro repo. Macro names and expansions are interned into one string pool
+ * shared by all files, and the macros of a file are kept as (name id, expansion id) pairs
+ * sorted by the name id, appended to a few memory-mapped segment files in the temporary
+ * directory.
+ * The macros of every file start from the default macros, so only the macros which are
+ * not the same as the default ones are stored; get returns a read-only view, which looks up
+ * and iterates the stored pairs and the default ones together, without copying or
+ * deserializing the map.
+ * Putting the macros of a file again appends a new record, the old one is simply not
+ * referred anymore. It is safe to write and read in different threads.
+ */
+public class MacroMappedRepo extends MacroRepo {
+	private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private TemporaryFile temporaryFile;
+	private ConcurrentHashMap<String, Integer> stringIds = new ConcurrentHashMap<>();
+	private volatile String[] strings = new String[1024];
+	private int stringCount = 0;
+	private Base base = null;
+	private ConcurrentHashMap<String, Extent> index = new ConcurrentHashMap<>();
+	private volatile List<Segment> segments = new ArrayList<>();
+
+	private static class Segment {
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		int position = 0;
+
+		Segment(FileChannel channel, MappedByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * The default macros as ids, sorted by the name id
+	 */
+	private static class Base {
+		final int[] names;
+		final int[] values;
+
+		Base(int[] names, int[] values) {
+			this.names = names;
+			this.values = values;
+		}
+
+		int valueOf(int name) {
+			int i = Arrays.binarySearch(names, name);
+			return i < 0 ? -1 : values[i];
+		}
+	}
+
+	private static class Extent {
+		final int segment;
+		final int offset;
+		final int pairs;
+		/* the stored pairs are over the base, or all the macros if it is null */
+		final Base base;
+		final int size;
+
+		Extent(int segment, int offset, int pairs, Base base, int size) {
+			this.segment = segment;
+			this.offset = offset;
+			this.pairs = pairs;
+			this.base = base;
+			this.size = size;
+		}
+	}
+
+	public MacroMappedRepo(TemporaryFile temporaryFile) {
+		this.temporaryFile = temporaryFile;
+	}
+
+	/**
+	 * @return a read-only view of the macros of the file, or an empty map if there is none
+	 */
+	@Override
+	public Map<String, String> get(String file) {
+		Extent extent = index.get(file);
+		if (extent == null)
+			return Collections.emptyMap();
+		return new MacroView(segments.get(extent.segment).buffer, extent);
+	}
+
+	@Override
+	public synchronized void putMacros(String fileFullPath, Map<String, String> macroMap,
+			IASTPreprocessorMacroDefinition[] macroDefinitions) {
+		if (macroDefinitions.length == 0 && macroMap.size() == 0)
+			return;
+		Map<String, String> macros = new HashMap<>(get(fileFullPath));
+		macros.putAll(macroMap);
+		for (IASTPreprocessorMacroDefinition def : macroDefinitions) {
+			macros.put(((IMacroBinding)def.getName().resolveBinding()).toString(), new String(def.getExpansion()));
+		}
+		try {
+			append(fileFullPath, macros);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void append(String file, Map<String, String> macros) throws IOException {
+		Base base = currentBase();
+		long[] pairs = new long[macros.size()];
+		int count = 0;
+		int inBase = 0;
+		for (Map.Entry<String, String> macro : macros.entrySet()) {
+			int name = idOf(macro.getKey());
+			int value = idOf(macro.getValue());
+			int baseValue = base.valueOf(name);
+			if (baseValue >= 0)
+				inBase++;
+			if (baseValue != value)
+				pairs[count++] = ((long) name << 32) | value;
+		}
+		if (inBase < base.names.length) {
+			/* some default macros are not in the set, it could not be stored over the default ones */
+			base = null;
+			count = 0;
+			for (Map.Entry<String, String> macro : macros.entrySet()) {
+				pairs[count++] = ((long) idOf(macro.getKey()) << 32) | idOf(macro.getValue());
+			}
+		}
+		Arrays.sort(pairs, 0, count);
+
+		int bytes = count * 8;
+		Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (segment == null || segment.position + bytes > segment.buffer.capacity()) {
+			segment = newSegment(Math.max(SEGMENT_SIZE, bytes));
+		}
+		ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(segment.position);
+		for (int i = 0; i < count; i++) {
+			buffer.putInt((int) (pairs[i] >> 32));
+			buffer.putInt((int) pairs[i]);
+		}
+		index.put(file, new Extent(segments.size() - 1, segment.position, count, base, macros.size()));
+		segment.position += bytes;
+	}
+
+	/* the default macros are only added before parsing (buildDefaultMap); the base is rebuilt if they are changed */
+	private Base currentBase() {
+		Map<String, String> defaultMap = getDefaultMap();
+		if (base != null && base.names.length == defaultMap.size())
+			return base;
+		long[] pairs = new long[defaultMap.size()];
+		int count = 0;
+		for (Map.Entry<String, String> macro : defaultMap.entrySet()) {
+			pairs[count++] = ((long) idOf(macro.getKey()) << 32) | idOf(macro.getValue());
+		}
+		Arrays.sort(pairs);
+		int[] names = new int[count];
+		int[] values = new int[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = (int) (pairs[i] >> 32);
+			values[i] = (int) pairs[i];
+		}
+		base = new Base(names, values);
+		return base;
+	}
+
+	private int idOf(String s) {
+		Integer id = stringIds.get(s);
+		if (id != null)
+			return id;
+		if (stringCount == strings.length)
+			strings = Arrays.copyOf(strings, stringCount * 2);
+		strings[stringCount] = s;
+		stringIds.put(s, stringCount);
+		return stringCount++;
+	}
+
+	private Segment newSegment(int capacity) throws IOException {
+		File path = new File(new File(temporaryFile.macroPath(0)).getParentFile(),
+				"segment-" + segments.size() + ".macro");
+		FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		Segment segment = new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+		List<Segment> grown = new ArrayList<>(segments);
+		grown.add(segment);
+		segments = grown;
+		return segment;
+	}
+
+	/**
+	 * @return the number of distinct strings of the names and expansions
+	 */
+	public synchronized int stringCount() {
+		return stringCount;
+	}
+
+	public synchronized void close() {
+		for (Segment segment : segments) {
+			try {
+				segment.channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		segments = new ArrayList<>();
+		index.clear();
+	}
+
+	private class MacroView extends AbstractMap<String, String> {
+		private final ByteBuffer buffer;
+		private final Extent extent;
+
+		MacroView(ByteBuffer buffer, Extent extent) {
+			this.buffer = buffer;
+			this.extent = extent;
+		}
+
+		private int nameAt(int pair) {
+			return buffer.getInt(extent.offset + pair * 8);
+		}
+
+		private int valueAt(int pair) {
+			return buffer.getInt(extent.offset + pair * 8 + 4);
+		}
+
+		private int find(int name) {
+			int low = 0;
+			int high = extent.pairs - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int midName = nameAt(mid);
+				if (midName < name)
+					low = mid + 1;
+				else if (midName > name)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			return -1;
+		}
+
+		@Override
+		public String get(Object key) {
+			Integer name = stringIds.get(key);
+			if (name == null)
+				return null;
+			int pair = find(name);
+			if (pair >= 0)
+				return strings[valueAt(pair)];
+			if (extent.base == null)
+				return null;
+			int value = extent.base.valueOf(name);
+			return value < 0 ? null : strings[value];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return extent.size;
+		}
+
+		@Override
+		public Set<Map.Entry<String, String>> entrySet() {
+			return new AbstractSet<Map.Entry<String, String>>() {
+				@Override
+				public Iterator<Map.Entry<String, String>> iterator() {
+					return new MacroIterator();
+				}
+
+				@Override
+				public int size() {
+					return extent.size;
+				}
+			};
+		}
+
+		/* merge the stored pairs and the default ones by the name id; the stored one wins */
+		private class MacroIterator implements Iterator<Map.Entry<String, String>> {
+			private final String[] pool = strings;
+			private final int[] baseNames = extent.base == null ? new int[0] : extent.base.names;
+			private int pair = 0;
+			private int basePair = 0;
+
+			@Override
+			public boolean hasNext() {
+				return pair < extent.pairs || basePair < baseNames.length;
+			}
+
+			@Override
+			public Map.Entry<String, String> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				if (basePair == baseNames.length || (pair < extent.pairs && nameAt(pair) <= baseNames[basePair])) {
+					int name = nameAt(pair);
+					if (basePair < baseNames.length && baseNames[basePair] == name)
+						basePair++;
+					Map.Entry<String, String> entry = new SimpleImmutableEntry<>(pool[name], pool[valueAt(pair)]);
+					pair++;
+					return entry;
+				}
+				int name = baseNames[basePair];
+				Map.Entry<String, String> entry = new SimpleImmutableEntry<>(pool[name], pool[extent.base.values[basePair]]);
+				basePair++;
+				return entry;
+			}
+		}
+	}
+}
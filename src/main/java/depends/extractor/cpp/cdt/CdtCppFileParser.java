@@ -27,8 +27,12 @@ package depends.extractor.cpp.cdt;
 import depends.entity.repo.EntityRepo;
 import depends.extractor.cpp.CppFileParser;
 import depends.extractor.cpp.MacroRepo;
+import depends.extractor.cpp.Scanner;
 import depends.relations.IBindingResolver;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.parser.EndOfFileException;
+import org.eclipse.cdt.core.parser.IScanner;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -38,13 +42,23 @@ public class CdtCppFileParser extends CppFileParser {
 	private PreprocessorHandler preprocessorHandler ;
 	private IBindingResolver bindingResolver;
 	private MacroRepo macroRepo;
+	private boolean prescanIncludes;
 
 	public CdtCppFileParser(EntityRepo entityRepo, PreprocessorHandler preprocessorHandler, IBindingResolver bindingResolver, MacroRepo macroRepo) {
+		this(entityRepo, preprocessorHandler, bindingResolver, macroRepo, false);
+	}
+
+	/**
+	 * @param prescanIncludes find the included files by the preprocessor only (see prescan), 
+	 * so that each file is fully parsed once, instead of parsed again after its included files are parsed
+	 */
+	public CdtCppFileParser(EntityRepo entityRepo, PreprocessorHandler preprocessorHandler, IBindingResolver bindingResolver, MacroRepo macroRepo, boolean prescanIncludes) {
 		super(entityRepo);
 		this.preprocessorHandler = preprocessorHandler;
 		this.bindingResolver = bindingResolver;
 		this.macroRepo= macroRepo;
-		}
+		this.prescanIncludes = prescanIncludes;
+	}
 	@Override
 	protected void parseFile(String fileFullPath) throws IOException {
 		Map<String, String> macroMap = new HashMap<>(macroRepo.getDefaultMap());
@@ -58,17 +72,18 @@ public class CdtCppFileParser extends CppFileParser {
 	 */
 	public void parse(String fileFullPath,Map<String, String> macroMap) throws IOException {
 		CppVisitor bridge = new CppVisitor(fileFullPath, entityRepo, preprocessorHandler, bindingResolver);
-		IASTTranslationUnit tu = (new CDTParser(preprocessorHandler.getIncludePaths())).parse(fileFullPath,macroMap);
+		IASTTranslationUnit tu = prescanIncludes? prescan(fileFullPath,macroMap):
+			(new CDTParser(preprocessorHandler.getIncludePaths())).parse(fileFullPath,macroMap);
 		boolean containsIncludes = false;
 		for (String incl:preprocessorHandler.getDirectIncludedFiles(tu.getAllPreprocessorStatements(),fileFullPath)) {
-			CdtCppFileParser importedParser = new CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver,macroRepo);
+			CdtCppFileParser importedParser = new CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver,macroRepo,prescanIncludes);
 			importedParser.parse(incl);
 			Map<String, String> macros = macroRepo.get(incl);
 			if (macros!=null)
 				macroMap.putAll(macros);
 			containsIncludes = true;
 		}
-		if (containsIncludes) {
+		if (containsIncludes || prescanIncludes) {
 			tu = (new CDTParser(preprocessorHandler.getIncludePaths())).parse(fileFullPath,macroMap);
 		}
 		macroRepo.putMacros(fileFullPath,macroMap,tu.getMacroDefinitions());
@@ -76,6 +91,26 @@ public class CdtCppFileParser extends CppFileParser {
 		return;
 	}
 
+	/**
+	 * Run the preprocessor only over the file, without GNUCPPSourceParser: the tokens are
+	 * drained from the scanner, and the include directives and macro definitions are read 
+	 * from its location map through an empty translation unit. The included files are 
+	 * the same as they are found by a full parse, because the parser does not 
+	 * change the preprocessing.
+	 */
+	private IASTTranslationUnit prescan(String fileFullPath, Map<String, String> macroMap) {
+		IScanner scanner = Scanner.buildScanner(fileFullPath,macroMap,preprocessorHandler.getIncludePaths(),false);
+		try {
+			while (true) {
+				scanner.nextToken();
+			}
+		} catch (EndOfFileException e) {
+		}
+		CPPASTTranslationUnit tu = new CPPASTTranslationUnit();
+		tu.setLocationResolver(scanner.getLocationResolver());
+		return tu;
+	}
+
 	@Override
 	protected boolean isPhase2Files(String fileFullPath) {
 		if (fileFullPath.endsWith(".h") || fileFullPath.endsWith(".hh") || fileFullPath.endsWith(".hpp")
@@ -1,34 +1,165 @@
 package depends.extractor.cpp.cdt;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 
+/**
+ * The contents of the included files, shared by the scanners of all parser threads.
+ * A content is keyed by the canonical path of the file, and is valid only while the
+ * modification time of the file is the same as when it was put. The cache is bounded
+ * by the (estimated) bytes of the contents, and the least recently used contents are
+ * evicted first.
+ */
 public class FileCache {
-	private HashMap<String, InternalFileContent> cache;
-	private HashMap<IIndexFileLocation, InternalFileContent> cache2;
-	private FileCache() {
-		this.cache = new HashMap<>();
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+	/* an empty or unknown file still costs the entry itself */
+	private static final long MIN_ENTRY_BYTES = 64;
+
+	private static class Entry {
+		final InternalFileContent content;
+		final long lastModified;
+		final long bytes;
+		Entry(InternalFileContent content, long lastModified, long bytes) {
+			this.content = content;
+			this.lastModified = lastModified;
+			this.bytes = bytes;
+		}
 	}
+
+	private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(256, 0.75f, true);
+	private long maxBytes;
+	private long bytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public FileCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
 	static FileCache inst = null;
-	public static FileCache getInstance() {
-		if (inst==null) inst = new FileCache();
+	public static synchronized FileCache getInstance() {
+		if (inst==null) inst = new FileCache(DEFAULT_MAX_BYTES);
 		return inst;
 	}
+
 	public InternalFileContent get(String filePath) {
-		InternalFileContent result = cache.get(filePath);
-		return result;
+		File file = new File(filePath);
+		return get(keyOf(file), file.lastModified());
 	}
+
 	public void put(String filePath, InternalFileContent c) {
-		cache.put(filePath,c);
+		File file = new File(filePath);
+		put(keyOf(file), file.lastModified(), file.length() * 2, c);
 	}
+
 	public InternalFileContent get(IIndexFileLocation ifl) {
-		InternalFileContent result = cache2.get(ifl);
-		return result;
+		File file = fileOf(ifl);
+		if (file == null)
+			return get(String.valueOf(ifl.getURI()), 0);
+		return get(keyOf(file), file.lastModified());
 	}
+
 	public void put(IIndexFileLocation ifl, InternalFileContent c) {
-		cache2.put(ifl,c);
+		File file = fileOf(ifl);
+		if (file == null)
+			put(String.valueOf(ifl.getURI()), 0, 0, c);
+		else
+			put(keyOf(file), file.lastModified(), file.length() * 2, c);
+	}
+
+	private synchronized InternalFileContent get(String key, long lastModified) {
+		Entry entry = cache.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (entry.lastModified != lastModified) {
+			/* the file is changed since it was cached */
+			cache.remove(key);
+			bytes -= entry.bytes;
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.content;
+	}
+
+	private synchronized void put(String key, long lastModified, long contentBytes, InternalFileContent c) {
+		Entry entry = new Entry(c, lastModified, Math.max(MIN_ENTRY_BYTES, contentBytes));
+		if (entry.bytes > maxBytes)
+			return;
+		Entry old = cache.put(key, entry);
+		if (old != null)
+			bytes -= old.bytes;
+		bytes += entry.bytes;
+		evictToFit();
+	}
+
+	private void evictToFit() {
+		Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			bytes -= iterator.next().getValue().bytes;
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	private String keyOf(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
 	}
 
+	private File fileOf(IIndexFileLocation ifl) {
+		if (ifl.getURI() == null || !"file".equals(ifl.getURI().getScheme()))
+			return null;
+		return new File(ifl.getURI());
+	}
+
+	/**
+	 * Set the bound of the cache; the least recently used contents are evicted if they
+	 * are over the new bound
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evictToFit();
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+		bytes = 0;
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
 }
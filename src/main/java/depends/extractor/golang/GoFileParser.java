@@ -27,6 +27,7 @@ package depends.extractor.golang;
 import depends.entity.Entity;
 import depends.entity.FileEntity;
 import depends.entity.repo.EntityRepo;
+import depends.extractor.ParserPredictionCache;
 import depends.relations.IBindingResolver;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
@@ -41,10 +42,21 @@ import java.io.IOException;
 
 
 public class GoFileParser extends  depends.extractor.FileParser{
+	private static final ParserPredictionCache predictionCache = new ParserPredictionCache();
 	private IBindingResolver bindingResolver;
+	private boolean sharedPredictionCache;
 	public GoFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver) {
+		this(entityRepo, bindingResolver, false);
+	}
+
+	/**
+	 * @param sharedPredictionCache share the prediction cache with the parses of other files,
+	 * instead of clearing it after each file
+	 */
+	public GoFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver, boolean sharedPredictionCache) {
         this.entityRepo = entityRepo;
         this.bindingResolver = bindingResolver;
+        this.sharedPredictionCache = sharedPredictionCache;
 	}
 
 	@Override
@@ -54,15 +66,23 @@ public class GoFileParser extends  depends.extractor.FileParser{
         lexer.setInterpreter(new LexerATNSimulator(lexer, lexer.getATN(), lexer.getInterpreter().decisionToDFA, new PredictionContextCache()));
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         GoParser parser = new GoParser(tokens);
-        ParserATNSimulator interpreter = new ParserATNSimulator(parser, parser.getATN(), parser.getInterpreter().decisionToDFA, new PredictionContextCache());
-        parser.setInterpreter(interpreter);
+        ParserATNSimulator interpreter;
+        if (sharedPredictionCache) {
+        	interpreter = predictionCache.install(parser);
+        } else {
+        	interpreter = new ParserATNSimulator(parser, parser.getATN(), parser.getInterpreter().decisionToDFA, new PredictionContextCache());
+        	parser.setInterpreter(interpreter);
+        }
         GoListener bridge = new GoListener(fileFullPath, entityRepo, bindingResolver);
 	    ParseTreeWalker walker = new ParseTreeWalker();
 	    try {
-	    	walker.walk(bridge, parser.sourceFile());
+	    	walker.walk(bridge, parseTree(parser, GoParser::sourceFile));
 			Entity fileEntity = entityRepo.getEntity(fileFullPath);
 			((FileEntity)fileEntity).cacheAllExpressions();
-			interpreter.clearDFA();
+			if (sharedPredictionCache)
+				predictionCache.parsed(interpreter);
+			else
+				interpreter.clearDFA();
 			bridge.done();
 	    }catch (Exception e) {
 	    	System.err.println("error encountered during parse..." );
@@ -38,10 +38,13 @@ public class GoHandlerContext extends HandlerContext {
 	}
 
 	public Entity foundPackageDeclaration(String packageName){
-		Entity pkgEntity = entityRepo.getEntity(packageName);
-		if (pkgEntity == null) {
-			pkgEntity = new PackageEntity(packageName, idGenerator.generateId());
-			entityRepo.add(pkgEntity);
+		Entity pkgEntity;
+		synchronized (entityRepo) {
+			pkgEntity = entityRepo.getEntity(packageName);
+			if (pkgEntity == null) {
+				pkgEntity = new PackageEntity(packageName, idGenerator.generateId());
+				entityRepo.add(pkgEntity);
+			}
 		}
 		Entity.setParent(currentFileEntity,pkgEntity);
 		return pkgEntity;
@@ -53,7 +53,7 @@ public class GoProcessor extends AbstractLangProcessor {
 
 	@Override
 	public FileParser createFileParser() {
-		return new GoFileParser( entityRepo, bindingResolver);
+		return new GoFileParser(entityRepo, bindingResolver, isSharedParserCache());
 	}
 
 	@Override
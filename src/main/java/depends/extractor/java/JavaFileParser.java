@@ -26,6 +26,7 @@ package depends.extractor.java;
 
 import depends.entity.repo.EntityRepo;
 import depends.extractor.FileParser;
+import depends.extractor.ParserPredictionCache;
 import depends.relations.IBindingResolver;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
@@ -40,10 +41,21 @@ import java.io.IOException;
 
 
 public class JavaFileParser extends FileParser {
+	private static final ParserPredictionCache predictionCache = new ParserPredictionCache();
 	private IBindingResolver bindingResolver;
+	private boolean sharedPredictionCache;
 	public JavaFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver) {
+		this(entityRepo, bindingResolver, false);
+	}
+
+	/**
+	 * @param sharedPredictionCache share the prediction cache with the parses of other files,
+	 * instead of clearing it after each file
+	 */
+	public JavaFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver, boolean sharedPredictionCache) {
         this.entityRepo = entityRepo;
         this.bindingResolver = bindingResolver;
+        this.sharedPredictionCache = sharedPredictionCache;
 	}
 
 	@Override
@@ -53,13 +65,21 @@ public class JavaFileParser extends FileParser {
         lexer.setInterpreter(new LexerATNSimulator(lexer, lexer.getATN(), lexer.getInterpreter().decisionToDFA, new PredictionContextCache()));
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         JavaParser parser = new JavaParser(tokens);
-        ParserATNSimulator interpreter = new ParserATNSimulator(parser, parser.getATN(), parser.getInterpreter().decisionToDFA, new PredictionContextCache());
-        parser.setInterpreter(interpreter);
+        ParserATNSimulator interpreter;
+        if (sharedPredictionCache) {
+        	interpreter = predictionCache.install(parser);
+        } else {
+        	interpreter = new ParserATNSimulator(parser, parser.getATN(), parser.getInterpreter().decisionToDFA, new PredictionContextCache());
+        	parser.setInterpreter(interpreter);
+        }
         JavaListener bridge = new JavaListener(fileFullPath, entityRepo, bindingResolver);
 	    ParseTreeWalker walker = new ParseTreeWalker();
 	    try {
-	    	walker.walk(bridge, parser.compilationUnit());
-			interpreter.clearDFA();
+	    	walker.walk(bridge, parseTree(parser, JavaParser::compilationUnit));
+			if (sharedPredictionCache)
+				predictionCache.parsed(interpreter);
+			else
+				interpreter.clearDFA();
 
 	    }catch (Exception e) {
 	    	System.err.println("error encountered during parse..." );
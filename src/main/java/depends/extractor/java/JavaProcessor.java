@@ -52,7 +52,7 @@ public class JavaProcessor extends AbstractLangProcessor {
 	
 	@Override
 	public FileParser createFileParser() {
-		return new JavaFileParser(entityRepo, bindingResolver);
+		return new JavaFileParser(entityRepo, bindingResolver, isSharedParserCache());
 	}
 	
 	@Override
@@ -2,11 +2,13 @@ package depends.extractor.kotlin;
 
 import depends.entity.repo.EntityRepo;
 import depends.extractor.FileParser;
+import depends.extractor.ParserPredictionCache;
 import depends.relations.IBindingResolver;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.io.IOException;
@@ -18,15 +20,29 @@ public class KotlinFileParser extends FileParser {
 		Lexer lexer = new KotlinLexer(input);
 		CommonTokenStream tokens = new CommonTokenStream(lexer);
 		KotlinParser parser = new KotlinParser(tokens);
+		/* without the shared cache, the static cache of the grammar is used and never cleared */
+		ParserATNSimulator interpreter = sharedPredictionCache ? predictionCache.install(parser) : null;
 		KotlinListener bridge = new KotlinListener(fileFullPath, entityRepo, bindingResolver);
 		ParseTreeWalker walker = new ParseTreeWalker();
-		walker.walk(bridge, parser.kotlinFile());
+		walker.walk(bridge, parseTree(parser, KotlinParser::kotlinFile));
+		if (sharedPredictionCache)
+			predictionCache.parsed(interpreter);
 	}
 	
+	private static final ParserPredictionCache predictionCache = new ParserPredictionCache();
 	private IBindingResolver bindingResolver;
+	private boolean sharedPredictionCache;
 	public KotlinFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver) {
+		this(entityRepo, bindingResolver, false);
+	}
+
+	/**
+	 * @param sharedPredictionCache share a bounded prediction cache with the parses of other files
+	 */
+	public KotlinFileParser(EntityRepo entityRepo, IBindingResolver bindingResolver, boolean sharedPredictionCache) {
         this.entityRepo = entityRepo;
         this.bindingResolver = bindingResolver;
+        this.sharedPredictionCache = sharedPredictionCache;
 	}
 
 
@@ -40,7 +40,7 @@ public class KotlinProcessor extends AbstractLangProcessor {
 
 	@Override
 	public FileParser createFileParser() {
-		return new KotlinFileParser(entityRepo, bindingResolver);
+		return new KotlinFileParser(entityRepo, bindingResolver, isSharedParserCache());
 	}
 
 	@Override
@@ -35,7 +35,9 @@ import depends.entity.GenericName;
 import depends.entity.TypeEntity;
 
 public class PomArtifactEntity extends TypeEntity {
+	private static final long serialVersionUID = 1L;
 	HashMap<String,String> properties;
+	public PomArtifactEntity() {}
 	public PomArtifactEntity(String simpleName, Entity parent, Integer id) {
 		super(GenericName.build(simpleName), parent, id);
 		properties = new HashMap<>();
@@ -27,6 +27,7 @@ package depends.extractor.pom;
 import depends.importtypes.Import;
 
 public class PomParent extends Import {
+	private static final long serialVersionUID = 1L;
 
 	public PomParent(String content) {
 		super(content);
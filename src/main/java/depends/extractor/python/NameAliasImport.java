@@ -4,6 +4,7 @@ import depends.entity.Entity;
 import depends.importtypes.Import;
 
 public class NameAliasImport extends Import {
+	private static final long serialVersionUID = 1L;
 
 	private String aliasedName;
 	private Entity entity;
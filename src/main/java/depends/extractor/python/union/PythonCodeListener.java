@@ -41,12 +41,14 @@ public class PythonCodeListener extends PythonParserBaseListener{
 		this.bindingResolver = bindingResolver;
 		this.pythonProcessor = pythonProcessor;
 		String dir = FileUtil.uniqFilePath(FileUtil.getLocatedDir(fileFullPath));
-		if (entityRepo.getEntity(dir) == null) {
-			PackageEntity pacakgeEntity = new PackageEntity(dir, entityRepo.generateId());
-			entityRepo.add(pacakgeEntity);
+		PackageEntity packageEntity;
+		synchronized (entityRepo) {
+			if (entityRepo.getEntity(dir) == null) {
+				PackageEntity pacakgeEntity = new PackageEntity(dir, entityRepo.generateId());
+				entityRepo.add(pacakgeEntity);
+			}
+			packageEntity = (PackageEntity) entityRepo.getEntity(dir);
 		}
-
-		PackageEntity packageEntity = (PackageEntity) entityRepo.getEntity(dir);
 		String moduleName = fileEntity.getRawName().uniqName().substring(packageEntity.getRawName().uniqName().length() + 1);
 		if (moduleName.endsWith(".py"))
 			moduleName = moduleName.substring(0, moduleName.length() - ".py".length());
@@ -39,7 +39,7 @@ public class PythonFileParser extends FileParser {
         PythonParser parser = new PythonParser(tokens);
         PythonCodeListener bridge = new PythonCodeListener(fileFullPath, entityRepo, bindingResolver, includeFileLocator, processor);
 	    ParseTreeWalker walker = new ParseTreeWalker();
-	    walker.walk(bridge, parser.file_input());
+	    walker.walk(bridge, parseTree(parser, PythonParser::file_input));
 	}
 
 }
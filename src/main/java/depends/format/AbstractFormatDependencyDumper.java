@@ -41,6 +41,13 @@ public abstract class AbstractFormatDependencyDumper {
 
 	public abstract boolean output();
 	public abstract String getFormatName();
+
+	/**
+	 * @return the extension of the output file; the dumpers of the same extension write the same file
+	 */
+	public String getFileExtension() {
+		return getFormatName();
+	}
 	protected String composeFilename() {
 		return outputDir+File.separator+name;
 	}
@@ -24,9 +24,15 @@ SOFTWARE.
 
 package depends.format;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import depends.format.binary.BinaryFormatDependencyDumper;
 import depends.format.detail.DetailTextFormatDependencyDumper;
 import depends.format.dot.DotFormatDependencyDumper;
 import depends.format.dot.DotFullnameDependencyDumper;
@@ -41,34 +47,83 @@ import depends.matrix.core.DependencyMatrix;
 public class DependencyDumper {
 
 	private final DependencyMatrix dependencyMatrix;
+	private boolean compactJson = false;
+	private boolean gzipXml = false;
 
 	public DependencyDumper(DependencyMatrix dependencies) {
 		this.dependencyMatrix = dependencies;
 	}
 	
+	public void setCompactJson(boolean compactJson) {
+		this.compactJson = compactJson;
+	}
+
+	public void setGzipXml(boolean gzipXml) {
+		this.gzipXml = gzipXml;
+	}
+
 	public void outputResult(String projectName, String outputDir, String[] outputFormat) {
-        outputDeps(projectName,outputDir,outputFormat);
+		for (List<AbstractFormatDependencyDumper> dumpers : outputDeps(projectName, outputDir, outputFormat)) {
+			output(projectName, dumpers);
+		}
 	}
-	
-	private final void outputDeps(String projectName, String outputDir, String[] outputFormat) {
-		@SuppressWarnings("unchecked")
+
+	/**
+	 * Output the formats concurrently in the executor. The matrix is only read,
+	 * and the dumpers writing the same file run in one task in order, so the file
+	 * is the same as the sequential output. Errors are reported per format.
+	 * @return the futures of the tasks
+	 */
+	public List<Future<?>> submitResult(ExecutorService executor, String projectName, String outputDir, String[] outputFormat) {
+		/* the cells are frozen before they are shared by the tasks */
+		dependencyMatrix.getCells();
+		List<Future<?>> futures = new ArrayList<>();
+		for (List<AbstractFormatDependencyDumper> dumpers : outputDeps(projectName, outputDir, outputFormat)) {
+			futures.add(executor.submit(() -> output(projectName, dumpers)));
+		}
+		return futures;
+	}
+
+	private void output(String projectName, List<AbstractFormatDependencyDumper> dumpers) {
+		for (AbstractFormatDependencyDumper dumper : dumpers) {
+			try {
+				if (!dumper.output())
+					System.err.println("Failed to output " + dumper.getFormatName() + " of " + projectName);
+			} catch (Exception e) {
+				System.err.println("Failed to output " + dumper.getFormatName() + " of " + projectName + ": " + e);
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @return the selected dumpers, grouped by the file they write
+	 */
+	private final Collection<List<AbstractFormatDependencyDumper>> outputDeps(String projectName, String outputDir, String[] outputFormat) {
 		List<String> formatList = Arrays.asList(outputFormat);
+		JsonFormatDependencyDumper jsonDumper = new JsonFormatDependencyDumper(dependencyMatrix,projectName,outputDir);
+		jsonDumper.setCompact(compactJson);
+		XmlFormatDependencyDumper xmlDumper = new XmlFormatDependencyDumper(dependencyMatrix,projectName,outputDir);
+		xmlDumper.setGzip(gzipXml);
 		AbstractFormatDependencyDumper[] builders = new AbstractFormatDependencyDumper[] {
 		 	new DetailTextFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
-		 	new XmlFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
-		 	new JsonFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
+		 	xmlDumper,
+		 	jsonDumper,
 		 	new ExcelXlsFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
 		 	new ExcelXlsxFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
 		 	new DotFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
 		 	new DotFullnameDependencyDumper(dependencyMatrix,projectName,outputDir),
 		 	new PlantUmlFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
-		 	new BriefPlantUmlFormatDependencyDumper(dependencyMatrix,projectName,outputDir)
+		 	new BriefPlantUmlFormatDependencyDumper(dependencyMatrix,projectName,outputDir),
+		 	new BinaryFormatDependencyDumper(dependencyMatrix,projectName,outputDir)
 		};
+		LinkedHashMap<String, List<AbstractFormatDependencyDumper>> groups = new LinkedHashMap<>();
 		for (AbstractFormatDependencyDumper builder:builders) {
 			if (formatList.contains(builder.getFormatName())){
-				builder.output();
+				groups.computeIfAbsent(builder.getFileExtension(), extension -> new ArrayList<>()).add(builder);
 			}
 		}
+		return groups.values();
     }
 	
 }
@@ -0,0 +1,262 @@
+package depends.format.binary;
+
+import static depends.format.binary.BinaryFormatDependencyDumper.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.LocationInfo;
+import depends.matrix.core.SparseDependencyCells;
+
+/**
+ * Read a matrix written by BinaryFormatDependencyDumper. The sections are
+ * memory-mapped, so loading is independent of the matrix size, and the node
+ * names and details are only decoded when they are read.
+ * The rows are dense: row i is the node i, so rowId(i) == i.
+ * The reader is immutable and could be shared between threads.
+ */
+public class BinaryDependencyCells implements DependencyCells {
+	private final String name;
+	private final int nodeCount;
+	private final int cellCount;
+	private final int valueCount;
+	private final int detailCount;
+	private final StringTable nodes;
+	private final String[] types;
+	private final int[] kinds;
+	private final IntBuffer rows;
+	private final IntBuffer columns;
+	private final IntBuffer cellValues;
+	private final IntBuffer valueTypes;
+	private final IntBuffer valueWeights;
+	private final IntBuffer valueDetails;
+	private final IntBuffer details;
+	private final StringTable detailStrings;
+
+	private BinaryDependencyCells(FileChannel channel) throws IOException {
+		ByteBuffer header = map(channel, 0, HEADER_SIZE);
+		if (header.getInt(0) != MAGIC)
+			throw new IOException("not a binary dependency matrix");
+		if (header.getInt(4) != VERSION)
+			throw new IOException("unsupported binary dependency matrix version " + header.getInt(4));
+		boolean withDetails = (header.getInt(8) & FLAG_DETAILS) != 0;
+		nodeCount = header.getInt(12);
+		cellCount = header.getInt(16);
+		valueCount = header.getInt(20);
+		detailCount = header.getInt(24);
+		long[] offsets = new long[SECTION_COUNT];
+		for (int section = 0; section < SECTION_COUNT; section++) {
+			offsets[section] = header.getLong(SECTION_OFFSETS + section * 8);
+		}
+		name = new StringTable(channel, offsets[SECTION_NAME]).get(0);
+		StringTable typeTable = new StringTable(channel, offsets[SECTION_TYPES]);
+		types = new String[typeTable.size()];
+		kinds = new int[types.length];
+		for (int type = 0; type < types.length; type++) {
+			types[type] = typeTable.get(type);
+			boolean possible = types[type].endsWith(DependencyType.POSSIBLE_DEP);
+			String baseType = possible
+					? types[type].substring(0, types[type].length() - DependencyType.POSSIBLE_DEP.length())
+					: types[type];
+			kinds[type] = SparseDependencyCells.kindOf(DependencyType.ordinalOf(baseType), possible);
+		}
+		nodes = new StringTable(channel, offsets[SECTION_NODES]);
+		rows = mapInts(channel, offsets[SECTION_ROWS], nodeCount + 1);
+		columns = mapInts(channel, offsets[SECTION_COLUMNS], cellCount);
+		cellValues = mapInts(channel, offsets[SECTION_CELL_VALUES], cellCount + 1);
+		valueTypes = mapInts(channel, offsets[SECTION_VALUE_TYPES], valueCount);
+		valueWeights = mapInts(channel, offsets[SECTION_VALUE_WEIGHTS], valueCount);
+		if (withDetails) {
+			valueDetails = mapInts(channel, offsets[SECTION_VALUE_DETAILS], valueCount + 1);
+			details = mapInts(channel, offsets[SECTION_DETAILS], (long) detailCount * DETAIL_INTS);
+			detailStrings = new StringTable(channel, offsets[SECTION_DETAIL_STRINGS]);
+		} else {
+			valueDetails = null;
+			details = null;
+			detailStrings = null;
+		}
+	}
+
+	public static BinaryDependencyCells load(Path file) throws IOException {
+		/* the mappings are still valid after the channel is closed */
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new BinaryDependencyCells(channel);
+		}
+	}
+
+	private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("section of " + size + " bytes could not be mapped");
+		return channel.map(MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static IntBuffer mapInts(FileChannel channel, long offset, long count) throws IOException {
+		return map(channel, offset, count * 4).asIntBuffer();
+	}
+
+	/**
+	 * @return the name of the matrix, e.g. project-file-sdsm
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public String nodeName(int node) {
+		return nodes.get(node);
+	}
+
+	/**
+	 * @return the node names, decoded when they are read
+	 */
+	public List<String> getNodes() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return nodes.get(index);
+			}
+
+			@Override
+			public int size() {
+				return nodeCount;
+			}
+		};
+	}
+
+	public boolean hasDetails() {
+		return details != null;
+	}
+
+	@Override
+	public int cellCount() {
+		return cellCount;
+	}
+
+	@Override
+	public int rowCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public int rowId(int row) {
+		return row;
+	}
+
+	@Override
+	public int rowOf(int from) {
+		return from >= 0 && from < nodeCount ? from : -1;
+	}
+
+	@Override
+	public int rowStart(int row) {
+		return rows.get(row);
+	}
+
+	@Override
+	public int rowEnd(int row) {
+		return rows.get(row + 1);
+	}
+
+	@Override
+	public int column(int cell) {
+		return columns.get(cell);
+	}
+
+	@Override
+	public int valueStart(int cell) {
+		return cellValues.get(cell);
+	}
+
+	@Override
+	public int valueEnd(int cell) {
+		return cellValues.get(cell + 1);
+	}
+
+	@Override
+	public int kind(int value) {
+		return kinds[valueTypes.get(value)];
+	}
+
+	@Override
+	public int typeOrdinal(int value) {
+		return kind(value) & ~SparseDependencyCells.POSSIBLE;
+	}
+
+	@Override
+	public boolean possible(int value) {
+		return (kind(value) & SparseDependencyCells.POSSIBLE) != 0;
+	}
+
+	@Override
+	public String type(int value) {
+		return types[valueTypes.get(value)];
+	}
+
+	@Override
+	public int weight(int value) {
+		return valueWeights.get(value);
+	}
+
+	@Override
+	public List<DependencyDetail> details(int value) {
+		if (details == null)
+			return Collections.emptyList();
+		int start = valueDetails.get(value);
+		int end = valueDetails.get(value + 1);
+		List<DependencyDetail> result = new ArrayList<>(end - start);
+		for (int detail = start; detail < end; detail++) {
+			int base = detail * DETAIL_INTS;
+			result.add(new DependencyDetail(location(base), location(base + DETAIL_INTS / 2)));
+		}
+		return result;
+	}
+
+	private LocationInfo location(int base) {
+		return new LocationInfo(detailString(details.get(base)), detailString(details.get(base + 1)),
+				detailString(details.get(base + 2)), details.get(base + 3));
+	}
+
+	private String detailString(int id) {
+		return id < 0 ? null : detailStrings.get(id);
+	}
+
+	/* count, count+1 byte offsets, UTF-8 bytes */
+	private static class StringTable {
+		private final IntBuffer offsets;
+		private final ByteBuffer bytes;
+
+		StringTable(FileChannel channel, long offset) throws IOException {
+			int count = map(channel, offset, 4).getInt(0);
+			offsets = mapInts(channel, offset + 4, count + 1);
+			bytes = map(channel, offset + 4L * (count + 2), offsets.get(count));
+		}
+
+		int size() {
+			return offsets.limit() - 1;
+		}
+
+		String get(int index) {
+			ByteBuffer string = bytes.duplicate();
+			string.position(offsets.get(index));
+			string.limit(offsets.get(index + 1));
+			return StandardCharsets.UTF_8.decode(string).toString();
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package depends.format.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import depends.format.AbstractFormatDependencyDumper;
+import depends.format.FileAttributes;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.LocationInfo;
+
+/**
+ * Write the matrix in a binary layout which could be memory-mapped by readers
+ * (see BinaryDependencyCells). All numbers are little-endian 32-bit integers,
+ * except the section offsets in the header which are 64-bit.
+ *
+ * header (HEADER_SIZE bytes):
+ *   magic, version, flags (FLAG_DETAILS), nodeCount, cellCount, valueCount,
+ *   detailCount, 0, and the offset of each section (0 if absent)
+ * sections:
+ *   NAME, TYPES, NODES: string tables - count, count+1 byte offsets, UTF-8 bytes padded to 4
+ *   ROWS: nodeCount+1 cell offsets; the cells of node i are [rows[i], rows[i+1])
+ *   COLUMNS: the 'to' node of each cell, sorted in a row
+ *   CELL_VALUES: cellCount+1 value offsets
+ *   VALUE_TYPES, VALUE_WEIGHTS: the index in TYPES and the weight of each value
+ *   VALUE_DETAILS: valueCount+1 detail offsets (with details only)
+ *   DETAILS: for each detail, the from object, type, file, line and the to
+ *     object, type, file, line; strings are indexes in DETAIL_STRINGS (with details only)
+ *   DETAIL_STRINGS: string table (with details only)
+ */
+public class BinaryFormatDependencyDumper extends AbstractFormatDependencyDumper {
+	public static final int MAGIC = 0x424D5344; // "DSMB"
+	public static final int VERSION = 1;
+	public static final int FLAG_DETAILS = 1;
+	public static final int HEADER_SIZE = 128;
+	public static final int SECTION_NAME = 0;
+	public static final int SECTION_TYPES = 1;
+	public static final int SECTION_NODES = 2;
+	public static final int SECTION_ROWS = 3;
+	public static final int SECTION_COLUMNS = 4;
+	public static final int SECTION_CELL_VALUES = 5;
+	public static final int SECTION_VALUE_TYPES = 6;
+	public static final int SECTION_VALUE_WEIGHTS = 7;
+	public static final int SECTION_VALUE_DETAILS = 8;
+	public static final int SECTION_DETAILS = 9;
+	public static final int SECTION_DETAIL_STRINGS = 10;
+	public static final int SECTION_COUNT = 11;
+	static final int SECTION_OFFSETS = 32;
+	static final int DETAIL_INTS = 8;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	public BinaryFormatDependencyDumper(DependencyMatrix matrix, String projectName, String outputDir) {
+		super(matrix, projectName, outputDir);
+	}
+
+	@Override
+	public String getFormatName() {
+		return "binary";
+	}
+
+	@Override
+	public String getFileExtension() {
+		return "dsmb";
+	}
+
+	@Override
+	public boolean output() {
+		try {
+			write(Paths.get(composeFilename() + ".dsmb"));
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	public void write(Path file) throws IOException {
+		List<String> nodes = matrix.getNodes();
+		int nodeCount = nodes.size();
+		DependencyCells cells = matrix.getCells();
+
+		/* first pass: the cells of each node, the value and detail counts, and the types */
+		int[] rows = new int[nodeCount + 1];
+		int[] typeOfKind = new int[256];
+		Arrays.fill(typeOfKind, -1);
+		List<String> types = new ArrayList<>();
+		int cellCount = 0;
+		int valueCount = 0;
+		int detailCount = 0;
+		for (int row = 0; row < cells.rowCount(); row++) {
+			int from = cells.rowId(row);
+			for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+				int to = cells.column(cell);
+				if (from >= nodeCount || to >= nodeCount)
+					throw new IOException("the node ids of " + name + " are not ordered, " + from + "->" + to);
+				rows[from + 1]++;
+				cellCount++;
+				for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+					if (typeOfKind[cells.kind(value)] < 0) {
+						typeOfKind[cells.kind(value)] = types.size();
+						types.add(cells.type(value));
+					}
+					valueCount++;
+					detailCount += cells.details(value).size();
+				}
+			}
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			rows[i + 1] += rows[i];
+		}
+		boolean withDetails = detailCount > 0;
+
+		byte[][] nameBytes = encode(Arrays.asList(new FileAttributes(name).getAttributeName()));
+		byte[][] typeBytes = encode(types);
+		byte[][] nodeBytes = encode(nodes);
+		long[] offsets = new long[SECTION_COUNT];
+		long position = HEADER_SIZE;
+		offsets[SECTION_NAME] = position;
+		position += stringTableSize(nameBytes);
+		offsets[SECTION_TYPES] = position;
+		position += stringTableSize(typeBytes);
+		offsets[SECTION_NODES] = position;
+		position += stringTableSize(nodeBytes);
+		offsets[SECTION_ROWS] = position;
+		position += 4L * (nodeCount + 1);
+		offsets[SECTION_COLUMNS] = position;
+		position += 4L * cellCount;
+		offsets[SECTION_CELL_VALUES] = position;
+		position += 4L * (cellCount + 1);
+		offsets[SECTION_VALUE_TYPES] = position;
+		position += 4L * valueCount;
+		offsets[SECTION_VALUE_WEIGHTS] = position;
+		position += 4L * valueCount;
+		if (withDetails) {
+			offsets[SECTION_VALUE_DETAILS] = position;
+			position += 4L * (valueCount + 1);
+			offsets[SECTION_DETAILS] = position;
+			position += 4L * DETAIL_INTS * detailCount;
+			offsets[SECTION_DETAIL_STRINGS] = position;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Section section = new Section(channel, offsets[SECTION_NAME]);
+			writeStringTable(section, nameBytes);
+			writeStringTable(section, typeBytes);
+			writeStringTable(section, nodeBytes);
+			for (int row : rows) {
+				section.putInt(row);
+			}
+			section.flush();
+
+			/* second pass: each section is written at its offset */
+			Section columns = new Section(channel, offsets[SECTION_COLUMNS]);
+			Section cellValues = new Section(channel, offsets[SECTION_CELL_VALUES]);
+			Section valueTypes = new Section(channel, offsets[SECTION_VALUE_TYPES]);
+			Section valueWeights = new Section(channel, offsets[SECTION_VALUE_WEIGHTS]);
+			Section valueDetails = withDetails ? new Section(channel, offsets[SECTION_VALUE_DETAILS]) : null;
+			Section details = withDetails ? new Section(channel, offsets[SECTION_DETAILS]) : null;
+			Map<String, Integer> detailStringIds = new HashMap<>();
+			List<String> detailStrings = new ArrayList<>();
+			int values = 0;
+			int detailIndex = 0;
+			for (int row = 0; row < cells.rowCount(); row++) {
+				for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+					columns.putInt(cells.column(cell));
+					cellValues.putInt(values);
+					for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+						valueTypes.putInt(typeOfKind[cells.kind(value)]);
+						valueWeights.putInt(cells.weight(value));
+						values++;
+						if (!withDetails)
+							continue;
+						valueDetails.putInt(detailIndex);
+						for (DependencyDetail detail : cells.details(value)) {
+							putLocation(details, detail.getSrc(), detailStringIds, detailStrings);
+							putLocation(details, detail.getDest(), detailStringIds, detailStrings);
+							detailIndex++;
+						}
+					}
+				}
+			}
+			cellValues.putInt(values);
+			columns.flush();
+			cellValues.flush();
+			valueTypes.flush();
+			valueWeights.flush();
+			if (withDetails) {
+				valueDetails.putInt(detailIndex);
+				valueDetails.flush();
+				details.flush();
+				Section strings = new Section(channel, offsets[SECTION_DETAIL_STRINGS]);
+				writeStringTable(strings, encode(detailStrings));
+				strings.flush();
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(withDetails ? FLAG_DETAILS : 0).putInt(nodeCount)
+					.putInt(cellCount).putInt(valueCount).putInt(detailCount).putInt(0);
+			for (long offset : offsets) {
+				header.putLong(offset);
+			}
+			header.clear();
+			long headerPosition = 0;
+			while (header.hasRemaining()) {
+				headerPosition += channel.write(header, headerPosition);
+			}
+		}
+	}
+
+	private void putLocation(Section details, LocationInfo location, Map<String, Integer> stringIds,
+			List<String> strings) throws IOException {
+		details.putInt(stringId(location.getObject(), stringIds, strings));
+		details.putInt(stringId(location.getType(), stringIds, strings));
+		details.putInt(stringId(location.getFile(), stringIds, strings));
+		details.putInt(location.getLineNumber());
+	}
+
+	private int stringId(String value, Map<String, Integer> stringIds, List<String> strings) {
+		if (value == null)
+			return -1;
+		Integer id = stringIds.get(value);
+		if (id == null) {
+			id = strings.size();
+			stringIds.put(value, id);
+			strings.add(value);
+		}
+		return id;
+	}
+
+	private static byte[][] encode(List<String> strings) {
+		byte[][] bytes = new byte[strings.size()][];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+		}
+		return bytes;
+	}
+
+	private static long stringTableSize(byte[][] strings) {
+		long size = 4L * (strings.length + 2);
+		for (byte[] string : strings) {
+			size += string.length;
+		}
+		return (size + 3) & ~3L;
+	}
+
+	private static void writeStringTable(Section section, byte[][] strings) throws IOException {
+		section.putInt(strings.length);
+		int offset = 0;
+		section.putInt(offset);
+		for (byte[] string : strings) {
+			offset += string.length;
+			section.putInt(offset);
+		}
+		for (byte[] string : strings) {
+			section.put(string);
+		}
+		section.put(new byte[(4 - (offset & 3)) & 3]);
+	}
+
+	/* a section written through its own buffer at its own position of the file */
+	private static class Section {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		private long position;
+
+		Section(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		void putInt(int value) throws IOException {
+			if (buffer.remaining() < 4)
+				flush();
+			buffer.putInt(value);
+		}
+
+		void put(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!buffer.hasRemaining())
+					flush();
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+	}
+}
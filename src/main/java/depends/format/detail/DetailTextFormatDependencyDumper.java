@@ -41,6 +41,10 @@ public class DetailTextFormatDependencyDumper extends AbstractFormatDependencyDu
 	public String getFormatName() {
 		return "detail";
 	}
+	@Override
+	public String getFileExtension() {
+		return "txt";
+	}
 	public DetailTextFormatDependencyDumper(DependencyMatrix matrix, String name, String outputDir) {
 		super(matrix,name,outputDir);
 	}
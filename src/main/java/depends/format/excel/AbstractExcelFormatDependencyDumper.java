@@ -0,0 +1,142 @@
+/*
+MIT License
+
+Copyright (c) 2018-2019 Gang ZHANG
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package depends.format.excel;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import depends.format.AbstractFormatDependencyDumper;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyMatrix;
+
+/**
+ * Write the DSM to a workbook row by row, in the order of the source nodes.
+ * The first two columns are the id and the name of the node; if there are
+ * more nodes than the columns of the format, the target nodes are split into
+ * sheets of DSM, DSM (2), DSM (3) ...
+ */
+public abstract class AbstractExcelFormatDependencyDumper extends AbstractFormatDependencyDumper {
+	private static final int HEADER_COLUMNS = 2;
+	private static final String SHEET_NAME = "DSM";
+
+	public AbstractExcelFormatDependencyDumper(DependencyMatrix matrix, String projectName, String outputDir) {
+		super(matrix, projectName, outputDir);
+	}
+
+	protected abstract Workbook createWorkbook();
+
+	protected abstract SpreadsheetVersion getSpreadsheetVersion();
+
+	/**
+	 * Release the resources of the workbook after it is written
+	 */
+	protected void disposeWorkbook(Workbook workbook) throws IOException {
+		workbook.close();
+	}
+
+	@Override
+	public boolean output() {
+		int nodeCount = matrix.getNodes().size();
+		SpreadsheetVersion version = getSpreadsheetVersion();
+		if (nodeCount + 1 > version.getMaxRows()) {
+			System.out.println("We can only export matrix with less than " + version.getMaxRows() + " items to "
+					+ getFormatName() + " due to MS Office limitation");
+			return false;
+		}
+		int nodesPerSheet = version.getMaxColumns() - HEADER_COLUMNS;
+		int sheetCount = Math.max(1, (nodeCount + nodesPerSheet - 1) / nodesPerSheet);
+		if (sheetCount > 1) {
+			System.out.println("The matrix has more than " + nodesPerSheet + " items, which are split into "
+					+ sheetCount + " sheets of " + getFormatName() + " due to MS Office limitation");
+		}
+		Workbook workbook = createWorkbook();
+		try (OutputStream out = new FileOutputStream(composeFilename() + "." + getFormatName())) {
+			write(workbook, nodesPerSheet, sheetCount);
+			workbook.write(out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				disposeWorkbook(workbook);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return true;
+	}
+
+	private void write(Workbook workbook, int nodesPerSheet, int sheetCount) {
+		int nodeCount = matrix.getNodes().size();
+		Sheet[] sheets = new Sheet[sheetCount];
+		for (int s = 0; s < sheetCount; s++) {
+			sheets[s] = workbook.createSheet(s == 0 ? SHEET_NAME : SHEET_NAME + " (" + (s + 1) + ")");
+			// create header row
+			Row header = sheets[s].createRow(0);
+			for (int i = s * nodesPerSheet; i < Math.min(nodeCount, (s + 1) * nodesPerSheet); i++) {
+				header.createCell(columnOf(i, nodesPerSheet)).setCellValue(i);
+			}
+		}
+
+		DependencyCells cells = matrix.getCells();
+		Row[] rows = new Row[sheetCount];
+		for (int i = 0; i < nodeCount; i++) {
+			// create header col
+			for (int s = 0; s < sheetCount; s++) {
+				rows[s] = sheets[s].createRow(i + 1);
+				rows[s].createCell(0).setCellValue(i);
+				rows[s].createCell(1).setCellValue(matrix.getNodes().get(i));
+			}
+			rows[i / nodesPerSheet].createCell(columnOf(i, nodesPerSheet)).setCellValue("(" + i + ")");
+
+			int row = cells.rowOf(i);
+			if (row < 0)
+				continue;
+			for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+				int to = cells.column(cell);
+				rows[to / nodesPerSheet].createCell(columnOf(to, nodesPerSheet))
+						.setCellValue(buildDependencyValues(cells, cell));
+			}
+		}
+	}
+
+	private int columnOf(int node, int nodesPerSheet) {
+		return node % nodesPerSheet + HEADER_COLUMNS;
+	}
+
+	private String buildDependencyValues(DependencyCells cells, int cell) {
+		StringBuilder sb = new StringBuilder();
+		for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+			String comma = sb.length() > 0 ? "," : "";
+			sb.append(comma).append(cells.type(value)).append("(").append(cells.weight(value)).append(")");
+		}
+		return sb.toString();
+	}
+}
@@ -24,23 +24,20 @@ SOFTWARE.
 
 package depends.format.excel;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Collection;
 
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import depends.format.AbstractFormatDependencyDumper;
 import depends.matrix.core.DependencyMatrix;
-import depends.matrix.core.DependencyPair;
-import depends.matrix.core.DependencyValue;
 
-public class ExcelXlsxFormatDependencyDumper extends AbstractFormatDependencyDumper {
-	private XSSFWorkbook workbook;
-	private XSSFSheet sheet;
+/**
+ * The rows are streamed to temporary files by SXSSFWorkbook, only the last
+ * rows of the window are kept in memory
+ */
+public class ExcelXlsxFormatDependencyDumper extends AbstractExcelFormatDependencyDumper {
+	private static final int ROW_WINDOW = 100;
 	@Override
 	public String getFormatName() {
 		return "xlsx";
@@ -50,70 +47,20 @@ public class ExcelXlsxFormatDependencyDumper extends AbstractFormatDependencyDum
 	}
 
 	@Override
-	public boolean output() {
-		String filename = composeFilename() + ".xlsx";
-
-		startFile();
-		Collection<DependencyPair> dependencyPairs = matrix.getDependencyPairs();
-		XSSFRow[] row = new XSSFRow[matrix.getNodes().size()];
-
-		// create header row
-		XSSFRow header = sheet.createRow(0);
-		for (int i = 0; i < matrix.getNodes().size(); i++) {
-			XSSFCell cell = header.createCell(i + 2);
-			cell.setCellValue(i);
-		}
-		;
-
-		// create header col
-		for (int i = 0; i < matrix.getNodes().size(); i++) {
-			row[i] = sheet.createRow(i + 1);
-			String node = matrix.getNodes().get(i);
-			XSSFCell cell = row[i].createCell(0);
-			cell.setCellValue(i);
-			cell = row[i].createCell(1);
-			cell.setCellValue(node);
-		}
-		;
-
-		// create header col
-		for (int i = 0; i < matrix.getNodes().size(); i++) {
-			XSSFCell cell = row[i].createCell(i + 2);
-			cell.setCellValue("(" + i + ")");
-		}
-		;
-
-		for (DependencyPair dependencyPair : dependencyPairs) {
-			XSSFCell cell = row[dependencyPair.getFrom()].createCell(dependencyPair.getTo() + 2);
-			cell.setCellValue(buildDependencyValues(dependencyPair.getDependencies()));
-		}
-		closeFile(filename);
-		return true;
+	protected Workbook createWorkbook() {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+		workbook.setCompressTempFiles(true);
+		return workbook;
 	}
 
-	private String buildDependencyValues(Collection<DependencyValue> dependencies) {
-		StringBuilder sb = new StringBuilder();
-		for (DependencyValue dependency : dependencies) {
-			String comma = sb.length() > 0 ? "," : "";
-			sb.append(comma).append(dependency.getType()).append("(").append(dependency.getWeight()).append(")");
-		}
-		return sb.toString();
-	}
-
-	private void closeFile(String filename) {
-		try {
-	        FileOutputStream out = new FileOutputStream(filename);
-	        workbook.write(out);
-	        workbook.close();
-	        out.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	@Override
+	protected SpreadsheetVersion getSpreadsheetVersion() {
+		return SpreadsheetVersion.EXCEL2007;
 	}
 
-	private void startFile() {
-		workbook = new XSSFWorkbook();
-		sheet = workbook.createSheet("DSM");
+	@Override
+	protected void disposeWorkbook(Workbook workbook) throws IOException {
+		((SXSSFWorkbook) workbook).dispose();
+		workbook.close();
 	}
-
 }
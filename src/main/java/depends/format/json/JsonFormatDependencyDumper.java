@@ -24,15 +24,32 @@ SOFTWARE.
 
 package depends.format.json;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 import depends.format.AbstractFormatDependencyDumper;
 import depends.format.FileAttributes;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyDetail;
 import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.LocationInfo;
 
+/**
+ * Write the matrix in the schema of JDepObject, streaming the cells one by one
+ * instead of building the whole object tree.
+ */
 public class JsonFormatDependencyDumper extends AbstractFormatDependencyDumper {
+	private boolean compact = false;
+
 	@Override
 	public String getFormatName() {
 		return "json";
@@ -42,24 +59,93 @@ public class JsonFormatDependencyDumper extends AbstractFormatDependencyDumper {
 		super(dependencyMatrix, projectName,outputDir);
 	}
 
+	/**
+	 * @param compact write without indentation and line breaks
+	 */
+	public void setCompact(boolean compact) {
+		this.compact = compact;
+	}
+
 	@Override
 	public boolean output() {
-		JDataBuilder jBuilder = new JDataBuilder();
-		JDepObject jDepObject = jBuilder.build(matrix, new FileAttributes(name));
-		toJson(jDepObject, composeFilename()+ ".json");
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(composeFilename()+ ".json"))) {
+			write(out);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
 		return true;
 	}
 
-	
-
-	private void toJson(JDepObject depObject, String jsonFileName) {
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			mapper.writerWithDefaultPrettyPrinter().writeValue(new File(jsonFileName), depObject);
-		} catch (Exception e) {
-			e.printStackTrace();
+	public void write(OutputStream out) throws IOException {
+		FileAttributes attribute = new FileAttributes(name);
+		JsonGenerator generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+		if (!compact)
+			generator.useDefaultPrettyPrinter();
+		generator.writeStartObject();
+		generator.writeStringField("schemaVersion", attribute.getSchemaVersion());
+		generator.writeStringField("name", attribute.getAttributeName());
+		generator.writeArrayFieldStart("variables");
+		for (String node:matrix.getNodes()) {
+			generator.writeString(node);
+		}
+		generator.writeEndArray();
+		generator.writeArrayFieldStart("cells");
+		DependencyCells cells = matrix.getCells();
+		/* the values of a cell are written in the order of a HashMap, same as JDataBuilder */
+		Map<String, Integer> values = new HashMap<>();
+		for (int row = 0; row < cells.rowCount(); row++) {
+			for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+				values.clear();
+				boolean hasDetails = false;
+				for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+					values.put(cells.type(value), value);
+					hasDetails |= !cells.details(value).isEmpty();
+				}
+				writeCell(generator, cells, cells.rowId(row), cells.column(cell), values, hasDetails);
+			}
 		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.flush();
+	}
 
+	private void writeCell(JsonGenerator generator, DependencyCells cells, int src, int dest,
+			Map<String, Integer> values, boolean hasDetails) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("src", src);
+		generator.writeNumberField("dest", dest);
+		generator.writeObjectFieldStart("values");
+		for (Map.Entry<String, Integer> value:values.entrySet()) {
+			generator.writeNumberField(value.getKey(), (float) cells.weight(value.getValue()));
+		}
+		generator.writeEndObject();
+		if (hasDetails) {
+			generator.writeArrayFieldStart("details");
+			for (Map.Entry<String, Integer> value:values.entrySet()) {
+				List<DependencyDetail> details = cells.details(value.getValue());
+				for (DependencyDetail detail:details) {
+					generator.writeStartObject();
+					writeLocation(generator, "src", detail.getSrc());
+					writeLocation(generator, "dest", detail.getDest());
+					generator.writeStringField("type", value.getKey());
+					generator.writeEndObject();
+				}
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
 	}
 
+	private void writeLocation(JsonGenerator generator, String fieldName, LocationInfo location) throws IOException {
+		if (location == null) {
+			generator.writeNullField(fieldName);
+			return;
+		}
+		generator.writeObjectFieldStart(fieldName);
+		generator.writeStringField("object", location.getObject());
+		generator.writeStringField("file", location.getFile());
+		generator.writeStringField("type", location.getType());
+		generator.writeNumberField("lineNumber", location.getLineNumber());
+		generator.writeEndObject();
+	}
 }
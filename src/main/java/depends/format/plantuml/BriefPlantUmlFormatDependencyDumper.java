@@ -16,6 +16,10 @@ public class BriefPlantUmlFormatDependencyDumper extends AbstractFormatDependenc
 	public String getFormatName() {
 		return "briefplantuml";
 	}
+	@Override
+	public String getFileExtension() {
+		return "uml";
+	}
 	
 	public BriefPlantUmlFormatDependencyDumper(DependencyMatrix dependencyMatrix, String projectName, String outputDir) {
 		super(dependencyMatrix,projectName,outputDir);
@@ -18,6 +18,10 @@ public class PlantUmlFormatDependencyDumper extends AbstractFormatDependencyDump
 	public String getFormatName() {
 		return "plantuml";
 	}
+	@Override
+	public String getFileExtension() {
+		return "uml";
+	}
 	
 	public PlantUmlFormatDependencyDumper(DependencyMatrix dependencyMatrix, String projectName, String outputDir) {
 		super(dependencyMatrix,projectName,outputDir);
@@ -24,16 +24,34 @@ SOFTWARE.
 
 package depends.format.xml;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import depends.format.AbstractFormatDependencyDumper;
 import depends.format.FileAttributes;
+import depends.matrix.core.DependencyCells;
 import depends.matrix.core.DependencyMatrix;
 
+/**
+ * Write the matrix in the schema of XDepObject with a StAX writer, cell by
+ * cell, in the same layout as the formatted output of JAXB.
+ */
 public class XmlFormatDependencyDumper extends AbstractFormatDependencyDumper{
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+	private static final String NAMESPACE = "http://dv8.archdia.com/xml/matrix";
+	private static final String INDENT = "    ";
+	private boolean gzip = false;
+
 	@Override
 	public String getFormatName() {
 		return "xml";
@@ -42,22 +60,97 @@ public class XmlFormatDependencyDumper extends AbstractFormatDependencyDumper{
 		super(dependencyMatrix,projectName,outputDir);
 	}
 
-	private void toXml(XDepObject xDepObject, String xmlFileName)  {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(XDepObject.class);
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            marshaller.marshal(xDepObject, new FileOutputStream(xmlFileName));
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
+	/**
+	 * @param gzip write to a gzip file (.xml.gz)
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
 
 	@Override
 	public boolean output() {
-        XDataBuilder xBuilder = new XDataBuilder();
-        XDepObject xDepObject = xBuilder.build(matrix,new FileAttributes(name));
-        toXml(xDepObject,composeFilename()+".xml");
+		String filename = composeFilename() + (gzip ? ".xml.gz" : ".xml");
+		try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(filename), 1 << 16)
+				: new BufferedOutputStream(new FileOutputStream(filename), 1 << 16)) {
+			write(out);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
  		return true;
 	}
+
+	public void write(OutputStream out) throws IOException, XMLStreamException {
+		FileAttributes attribute = new FileAttributes(name);
+		/* the declaration is written directly, since a StAX writer could not write the standalone attribute */
+		out.write(XML_DECLARATION.getBytes(StandardCharsets.UTF_8));
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+		writer.writeStartElement("matrix");
+		writer.writeAttribute("name", attribute.getAttributeName());
+		writer.writeAttribute("schema-version", attribute.getSchemaVersion());
+		writer.writeDefaultNamespace(NAMESPACE);
+
+		indent(writer, 1);
+		if (matrix.getNodes().isEmpty()) {
+			writer.writeEmptyElement("variables");
+		} else {
+			writer.writeStartElement("variables");
+			for (String node:matrix.getNodes()) {
+				indent(writer, 2);
+				writer.writeStartElement("variable");
+				writer.writeCharacters(node);
+				writer.writeEndElement();
+			}
+			indent(writer, 1);
+			writer.writeEndElement();
+		}
+
+		DependencyCells cells = matrix.getCells();
+		indent(writer, 1);
+		if (cells.cellCount() == 0) {
+			writer.writeEmptyElement("cells");
+		} else {
+			writer.writeStartElement("cells");
+			/* the values of a cell are written in the order of a HashMap, same as XDataBuilder */
+			Map<String, Integer> values = new HashMap<>();
+			for (int row = 0; row < cells.rowCount(); row++) {
+				for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+					values.clear();
+					for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+						values.put(cells.type(value), value);
+					}
+					writeCell(writer, cells, cells.rowId(row), cells.column(cell), values);
+				}
+			}
+			indent(writer, 1);
+			writer.writeEndElement();
+		}
+		writer.writeCharacters("\n");
+		writer.writeEndElement();
+		writer.writeCharacters("\n");
+		writer.flush();
+		writer.close();
+	}
+
+	private void writeCell(XMLStreamWriter writer, DependencyCells cells, int src, int dest,
+			Map<String, Integer> values) throws XMLStreamException {
+		indent(writer, 2);
+		writer.writeStartElement("cell");
+		writer.writeAttribute("dest", Integer.toString(dest));
+		writer.writeAttribute("src", Integer.toString(src));
+		for (Map.Entry<String, Integer> value:values.entrySet()) {
+			indent(writer, 3);
+			writer.writeEmptyElement("depend");
+			writer.writeAttribute("name", value.getKey());
+			writer.writeAttribute("weight", Float.toString(cells.weight(value.getValue())));
+		}
+		indent(writer, 2);
+		writer.writeEndElement();
+	}
+
+	private void indent(XMLStreamWriter writer, int depth) throws XMLStreamException {
+		writer.writeCharacters("\n");
+		for (int i = 0; i < depth; i++) {
+			writer.writeCharacters(INDENT);
+		}
+	}
 }
@@ -33,7 +33,7 @@ import depends.matrix.core.DependencyDetail;
 import depends.matrix.core.DependencyMatrix;
 import depends.matrix.core.LocationInfo;
 import depends.matrix.transform.OrderedMatrixGenerator;
-import depends.relations.Relation;
+import depends.relations.RelationList;
 import multilang.depends.util.file.path.EmptyFilenameWritter;
 import multilang.depends.util.file.path.FilenameWritter;
 import multilang.depends.util.file.strip.EmptyLeadingNameStripper;
@@ -41,13 +41,10 @@ import multilang.depends.util.file.strip.ILeadingNameStrippper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
-import static depends.deptypes.DependencyType.POSSIBLE_DEP;
-
 public abstract class DependencyGenerator {
 
 	private static Logger logger = LoggerFactory.getLogger(DependencyGenerator.class);
@@ -57,6 +54,10 @@ public abstract class DependencyGenerator {
 	public DependencyMatrix identifyDependencies(EntityRepo entityRepo, List<String> typeFilter) {
 		System.out.println("dependencie data generating...");
 		DependencyMatrix dependencyMatrix = build(entityRepo, typeFilter);
+		return reorder(dependencyMatrix);
+	}
+
+	DependencyMatrix reorder(DependencyMatrix dependencyMatrix) {
 		System.out.println("reorder dependency matrix...");
 		dependencyMatrix = new OrderedMatrixGenerator(dependencyMatrix).build();
 		System.out.println("Dependencies data generating done successfully...");
@@ -70,46 +71,63 @@ public abstract class DependencyGenerator {
 	 * @return the generated dependency matrix
 	 */
 	public DependencyMatrix build(EntityRepo entityRepo,List<String> typeFilter) {
-		DependencyMatrix dependencyMatrix = new DependencyMatrix(0, typeFilter,outputSelfDependencies);
+		DependencyMatrix dependencyMatrix = createMatrix(typeFilter);
 		Iterator<Entity> iterator = entityRepo.entityIterator();
 		System.out.println("Start create dependencies matrix....");
 		while(iterator.hasNext()) {
 			Entity entity = iterator.next();
 			if (!entity.inScope()) continue;
-			if (outputLevelMatch(entity)){
-				dependencyMatrix.addNode(nameOf(entity),entity.getId());
-			}
-			int entityFrom = upToOutputLevelEntityId(entityRepo, entity);
-			if (entityFrom==-1) continue;
-			for (Relation relation:entity.getRelations()) {
-				Entity relatedEntity = relation.getEntity();
-				if (relatedEntity==null) continue;
-				List<Entity> relatedEntities = expandEntity(relatedEntity);
-				String possibleDependencyFlag = relation.possible()? POSSIBLE_DEP :"";
-				relatedEntities.forEach(theEntity->{
-					if (theEntity.getId()>=0) {
-						int entityTo = upToOutputLevelEntityId(entityRepo,theEntity);
-						if (entityTo!=-1) {
-							DependencyDetail detail = buildDescription(entity, theEntity, relation.getFromLine());
-							detail = rewriteDetail(detail);
-							dependencyMatrix.addDependency(relation.getType()+possibleDependencyFlag, entityFrom,entityTo,1,detail);
-						}
-					}
-				});
-			}
+			addEntity(dependencyMatrix, entityRepo, entity);
 		}
 		System.out.println("Finish create dependencies matrix....");
 		return dependencyMatrix;
 	}
 
-	private List<Entity> expandEntity(Entity relatedEntity) {
-		List<Entity> entities = new ArrayList<>();
-		if (relatedEntity instanceof CandidateTypes) {
-			entities = Collections.unmodifiableList((List) ((CandidateTypes) relatedEntity).getCandidateTypes());
-		}else {
-			entities.add(relatedEntity);
+	DependencyMatrix createMatrix(List<String> typeFilter) {
+		projection = new int[0];
+		return new DependencyMatrix(0, typeFilter,outputSelfDependencies);
+	}
+
+	/**
+	 * Add the node (if the entity is of the output level) and the relations of an
+	 * entity in scope to the matrix
+	 */
+	void addEntity(DependencyMatrix dependencyMatrix, EntityRepo entityRepo, Entity entity) {
+		addNode(dependencyMatrix, entity);
+		int entityFrom = upToOutputLevelEntityId(entityRepo, entity);
+		if (entityFrom==-1) return;
+		RelationList relations = entity.relationList();
+		if (relations==null) return;
+		for (int i=0;i<relations.size();i++) {
+			Entity relatedEntity = relations.target(i);
+			if (relatedEntity==null) continue;
+			if (relatedEntity instanceof CandidateTypes) {
+				for (Entity theEntity:((CandidateTypes) relatedEntity).getCandidateTypes()) {
+					addDependency(dependencyMatrix, entityRepo, entity, entityFrom, theEntity, relations, i);
+				}
+			}else {
+				addDependency(dependencyMatrix, entityRepo, entity, entityFrom, relatedEntity, relations, i);
+			}
+		}
+	}
+
+	void addNode(DependencyMatrix dependencyMatrix, Entity entity) {
+		if (outputLevelMatch(entity)){
+			dependencyMatrix.addNode(nameOf(entity),entity.getId());
+		}
+	}
+
+	void addDependency(DependencyMatrix dependencyMatrix, EntityRepo entityRepo, Entity entity, int entityFrom,
+			Entity theEntity, RelationList relations, int index) {
+		if (theEntity.getId()<0) return;
+		int entityTo = upToOutputLevelEntityId(entityRepo,theEntity);
+		if (entityTo==-1) return;
+		DependencyDetail detail = null;
+		if (generateDetail) {
+			detail = buildDescription(entity, theEntity, relations.hasLine(index)?relations.line(index):null);
+			detail = rewriteDetail(detail);
 		}
-		return entities;
+		dependencyMatrix.addDependency(relations.typeOrdinal(index), relations.possible(index), entityFrom,entityTo,1,detail);
 	}
 
 	private DependencyDetail rewriteDetail(DependencyDetail detail) {
@@ -129,7 +147,67 @@ public abstract class DependencyGenerator {
 						dstFile, detail.getDest().getLineNumber()));
 	}
 
-	protected abstract int upToOutputLevelEntityId(EntityRepo entityRepo, Entity entity);
+	/**
+	 * @return the id of the output level entity which the entity belongs to, or -1 if
+	 * there is no such entity in scope
+	 */
+	protected int upToOutputLevelEntityId(EntityRepo entityRepo, Entity entity) {
+		return projectionOf(entity);
+	}
+
+	/**
+	 * @return whether the entity is an output level entity, which the entity itself and
+	 * its descendants are projected to
+	 */
+	protected abstract boolean isProjectionTarget(Entity entity);
+
+	/*
+	 * The projection of entities (entity id -> output level entity id) is filled from
+	 * the ancestors down to the entity the first time an entity or its descendant is
+	 * met, so later the projection of every entity is a single array load.
+	 * It is reset for each matrix.
+	 */
+	private static final int UNKNOWN = -2;
+	private int[] projection = new int[0];
+	private Entity[] projectionPath = new Entity[16];
+
+	int projectionOf(Entity entity) {
+		int id = entity.getId();
+		if (id >= 0 && id < projection.length && projection[id] != UNKNOWN)
+			return projection[id];
+		int depth = 0;
+		int result = -1;
+		Entity current = entity;
+		while (current != null) {
+			int currentId = current.getId();
+			if (currentId >= 0 && currentId < projection.length && projection[currentId] != UNKNOWN) {
+				result = projection[currentId];
+				break;
+			}
+			if (depth == projectionPath.length)
+				projectionPath = Arrays.copyOf(projectionPath, depth * 2);
+			projectionPath[depth++] = current;
+			if (isProjectionTarget(current)) {
+				result = current.inScope() ? currentId : -1;
+				break;
+			}
+			current = current.getParent();
+		}
+		for (int i = 0; i < depth; i++) {
+			int pathId = projectionPath[i].getId();
+			projectionPath[i] = null;
+			if (pathId < 0)
+				continue;
+			if (pathId >= projection.length) {
+				int length = Math.max(pathId + 1, projection.length + (projection.length >> 1));
+				int oldLength = projection.length;
+				projection = Arrays.copyOf(projection, length);
+				Arrays.fill(projection, oldLength, length, UNKNOWN);
+			}
+			projection[pathId] = result;
+		}
+		return result;
+	}
 
 	protected abstract String nameOf(Entity entity);
 
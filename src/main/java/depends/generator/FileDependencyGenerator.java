@@ -26,7 +26,6 @@ package depends.generator;
 
 import depends.entity.Entity;
 import depends.entity.FileEntity;
-import depends.entity.repo.EntityRepo;
 
 public class FileDependencyGenerator extends DependencyGenerator{
 	@Override
@@ -46,13 +45,8 @@ public class FileDependencyGenerator extends DependencyGenerator{
 	}
 
 	@Override
-	protected int upToOutputLevelEntityId(EntityRepo entityRepo, Entity entity) {
-		Entity ancestor = entity.getAncestorOfType(FileEntity.class);
-		if (ancestor==null) {
-			return -1;
-		}
-		if (!ancestor.inScope()) return -1;
-		return ancestor.getId();
+	protected boolean isProjectionTarget(Entity entity) {
+		return entity.getClass().equals(FileEntity.class);
 	}
 
 }
@@ -28,7 +28,6 @@ import depends.entity.Entity;
 import depends.entity.EntityNameBuilder;
 import depends.entity.FileEntity;
 import depends.entity.FunctionEntity;
-import depends.entity.repo.EntityRepo;
 
 public class FunctionDependencyGenerator extends DependencyGenerator {
 	@Override
@@ -48,12 +47,8 @@ public class FunctionDependencyGenerator extends DependencyGenerator {
 	}
 
 	@Override
-	protected int upToOutputLevelEntityId(EntityRepo entityRepo, Entity entity) {
-		Entity ancestor = entity.getAncestorOfType(FunctionEntity.class);
-		if (ancestor == null)
-			return -1;
-		if (!ancestor.inScope()) return -1;
-		return ancestor.getId();
+	protected boolean isProjectionTarget(Entity entity) {
+		return entity.getClass().equals(FunctionEntity.class);
 	}
 
 	@Override
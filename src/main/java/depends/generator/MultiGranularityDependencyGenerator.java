@@ -0,0 +1,227 @@
+/*
+MIT License
+
+Copyright (c) 2018-2019 Gang ZHANG
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package depends.generator;
+
+import depends.entity.CandidateTypes;
+import depends.entity.Entity;
+import depends.entity.repo.EntityRepo;
+import depends.matrix.core.DependencyMatrix;
+import depends.relations.RelationList;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Generate the matrices of several granularities in one walk over the entities.
+ * Each relation is fanned out to the matrices of all generators in the same pass.
+ * In parallel mode, the entities are walked once and handed over in batches to one
+ * thread per generator, which adds them to its own matrix.
+ */
+public class MultiGranularityDependencyGenerator {
+	private static final int BATCH_SIZE = 1024;
+	private static final int MAX_PENDING_BATCHES = 16;
+	private final DependencyGenerator[] generators;
+	private boolean parallel = false;
+
+	public MultiGranularityDependencyGenerator(List<DependencyGenerator> generators) {
+		this.generators = generators.toArray(new DependencyGenerator[0]);
+	}
+
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * @return the ordered matrices, in the order of the generators
+	 */
+	public List<DependencyMatrix> identifyDependencies(EntityRepo entityRepo, List<String> typeFilter) {
+		return identifyDependencies(entityRepo, typeFilter, null);
+	}
+
+	/**
+	 * @param onMatrix called with each ordered matrix and the index of its generator as soon as
+	 * the matrix is ordered (in parallel mode, from the ordering threads), e.g. to output it
+	 * while the other matrices are ordered
+	 * @return the ordered matrices, in the order of the generators
+	 */
+	public List<DependencyMatrix> identifyDependencies(EntityRepo entityRepo, List<String> typeFilter,
+			ObjIntConsumer<DependencyMatrix> onMatrix) {
+		System.out.println("dependencie data generating...");
+		DependencyMatrix[] matrices = new DependencyMatrix[generators.length];
+		for (int g = 0; g < generators.length; g++) {
+			matrices[g] = generators[g].createMatrix(typeFilter);
+		}
+		System.out.println("Start create dependencies matrix....");
+		if (parallel && generators.length > 1)
+			buildInParallel(entityRepo, matrices);
+		else
+			build(entityRepo, matrices);
+		System.out.println("Finish create dependencies matrix....");
+
+		List<Callable<DependencyMatrix>> reorders = new ArrayList<>();
+		for (int g = 0; g < generators.length; g++) {
+			DependencyGenerator generator = generators[g];
+			DependencyMatrix matrix = matrices[g];
+			int index = g;
+			reorders.add(() -> {
+				DependencyMatrix ordered = generator.reorder(matrix);
+				if (onMatrix != null)
+					onMatrix.accept(ordered, index);
+				return ordered;
+			});
+		}
+		return parallel && generators.length > 1 ? runAll(reorders) : callAll(reorders);
+	}
+
+	private void build(EntityRepo entityRepo, DependencyMatrix[] matrices) {
+		int[] entityFrom = new int[generators.length];
+		Iterator<Entity> iterator = entityRepo.entityIterator();
+		while (iterator.hasNext()) {
+			Entity entity = iterator.next();
+			if (!entity.inScope()) continue;
+			boolean hasFrom = false;
+			for (int g = 0; g < generators.length; g++) {
+				generators[g].addNode(matrices[g], entity);
+				entityFrom[g] = generators[g].upToOutputLevelEntityId(entityRepo, entity);
+				hasFrom |= entityFrom[g] != -1;
+			}
+			if (!hasFrom) continue;
+			RelationList relations = entity.relationList();
+			if (relations == null) continue;
+			for (int i = 0; i < relations.size(); i++) {
+				Entity relatedEntity = relations.target(i);
+				if (relatedEntity == null) continue;
+				if (relatedEntity instanceof CandidateTypes) {
+					for (Entity theEntity : ((CandidateTypes) relatedEntity).getCandidateTypes()) {
+						addDependency(matrices, entityRepo, entity, entityFrom, theEntity, relations, i);
+					}
+				} else {
+					addDependency(matrices, entityRepo, entity, entityFrom, relatedEntity, relations, i);
+				}
+			}
+		}
+	}
+
+	private void addDependency(DependencyMatrix[] matrices, EntityRepo entityRepo, Entity entity, int[] entityFrom,
+			Entity theEntity, RelationList relations, int index) {
+		for (int g = 0; g < generators.length; g++) {
+			if (entityFrom[g] == -1) continue;
+			generators[g].addDependency(matrices[g], entityRepo, entity, entityFrom[g], theEntity, relations, index);
+		}
+	}
+
+	/* the batches are added to a matrix by a single thread in the order of the walk,
+	 * so the nodes and details are in the same order as the sequential build */
+	private void buildInParallel(EntityRepo entityRepo, DependencyMatrix[] matrices) {
+		ExecutorService[] workers = new ExecutorService[generators.length];
+		for (int g = 0; g < generators.length; g++) {
+			workers[g] = Executors.newSingleThreadExecutor();
+		}
+		Semaphore pending = new Semaphore(MAX_PENDING_BATCHES * generators.length);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			List<Entity> batch = new ArrayList<>(BATCH_SIZE);
+			Iterator<Entity> iterator = entityRepo.entityIterator();
+			while (iterator.hasNext()) {
+				Entity entity = iterator.next();
+				if (!entity.inScope()) continue;
+				batch.add(entity);
+				if (batch.size() == BATCH_SIZE) {
+					submit(workers, pending, futures, entityRepo, matrices, batch);
+					batch = new ArrayList<>(BATCH_SIZE);
+				}
+			}
+			submit(workers, pending, futures, entityRepo, matrices, batch);
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			for (ExecutorService worker : workers) {
+				worker.shutdownNow();
+			}
+		}
+	}
+
+	private void submit(ExecutorService[] workers, Semaphore pending, List<Future<?>> futures, EntityRepo entityRepo,
+			DependencyMatrix[] matrices, List<Entity> batch) throws InterruptedException {
+		for (int g = 0; g < generators.length; g++) {
+			DependencyGenerator generator = generators[g];
+			DependencyMatrix matrix = matrices[g];
+			pending.acquire();
+			futures.add(workers[g].submit(() -> {
+				try {
+					for (Entity entity : batch) {
+						generator.addEntity(matrix, entityRepo, entity);
+					}
+				} finally {
+					pending.release();
+				}
+			}));
+		}
+	}
+
+	private List<DependencyMatrix> callAll(List<Callable<DependencyMatrix>> tasks) {
+		List<DependencyMatrix> results = new ArrayList<>();
+		try {
+			for (Callable<DependencyMatrix> task : tasks) {
+				results.add(task.call());
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		return results;
+	}
+
+	private List<DependencyMatrix> runAll(List<Callable<DependencyMatrix>> tasks) {
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		List<DependencyMatrix> results = new ArrayList<>();
+		try {
+			for (Future<DependencyMatrix> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+}
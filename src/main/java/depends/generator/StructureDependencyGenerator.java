@@ -25,7 +25,6 @@ SOFTWARE.
 package depends.generator;
 
 import depends.entity.*;
-import depends.entity.repo.EntityRepo;
 
 public class StructureDependencyGenerator extends DependencyGenerator{
 	@Override
@@ -49,13 +48,8 @@ public class StructureDependencyGenerator extends DependencyGenerator{
 	}
 
 	@Override
-	protected int upToOutputLevelEntityId(EntityRepo entityRepo, Entity entity) {
-		Entity ancestor = getAncestorOfType(entity);
-		if (ancestor==null) {
-			return -1;
-		}
-		if (!ancestor.inScope()) return -1;
-		return ancestor.getId();
+	protected boolean isProjectionTarget(Entity entity) {
+		return outputLevelMatch(entity);
 	}
 
 	public Entity getAncestorOfType(Entity fromEntity) {
@@ -25,6 +25,7 @@ SOFTWARE.
 package depends.importtypes;
 
 public class ExactMatchImport extends Import{
+	private static final long serialVersionUID = 1L;
 	public ExactMatchImport(String content) {
 		super(content);
 	}
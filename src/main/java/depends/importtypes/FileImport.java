@@ -25,6 +25,7 @@ SOFTWARE.
 package depends.importtypes;
 
 public class FileImport extends Import{
+	private static final long serialVersionUID = 1L;
 	public FileImport(String content) {
 		super(content);
 	}
@@ -24,7 +24,10 @@ SOFTWARE.
 
 package depends.importtypes;
 
-public abstract class Import {
+import java.io.Serializable;
+
+public abstract class Import implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private String content;
 	public String getContent() {
 		return content;
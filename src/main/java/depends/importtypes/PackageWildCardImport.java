@@ -25,6 +25,7 @@ SOFTWARE.
 package depends.importtypes;
 
 public class PackageWildCardImport extends Import{
+	private static final long serialVersionUID = 1L;
 	public PackageWildCardImport(String content) {
 		super(content);
 	}
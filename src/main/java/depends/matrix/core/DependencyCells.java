@@ -0,0 +1,61 @@
+package depends.matrix.core;
+
+import java.util.List;
+
+/**
+ * Read the cells of a dependency matrix row by row.
+ * - rows: the 'from' ids with cells, in order
+ * - cells: the 'to' ids of a row, in order; the cells of a row are
+ *   [rowStart(row), rowEnd(row))
+ * - values: the dependency types of a cell; the values of a cell are
+ *   [valueStart(cell), valueEnd(cell))
+ * The cells of a view (see MappedDependencyMatrix) are built when the row is
+ * read, so the cell and value indexes are only valid until another row is read,
+ * and a reader should not be shared between threads.
+ */
+public interface DependencyCells {
+	int cellCount();
+
+	int rowCount();
+
+	/**
+	 * @return the 'from' id of the row
+	 */
+	int rowId(int row);
+
+	/**
+	 * @return the row of the 'from' id, or a negative value if there is no cell from it
+	 */
+	int rowOf(int from);
+
+	int rowStart(int row);
+
+	int rowEnd(int row);
+
+	/**
+	 * @return the 'to' id of the cell
+	 */
+	int column(int cell);
+
+	int valueStart(int cell);
+
+	int valueEnd(int cell);
+
+	/**
+	 * @return the type ordinal in DependencyType, with SparseDependencyCells.POSSIBLE if it is a possible dependency
+	 */
+	int kind(int value);
+
+	int typeOrdinal(int value);
+
+	boolean possible(int value);
+
+	/**
+	 * @return the type name, with POSSIBLE_DEP suffix if it is a possible dependency
+	 */
+	String type(int value);
+
+	int weight(int value);
+
+	List<DependencyDetail> details(int value);
+}
@@ -24,67 +24,114 @@ SOFTWARE.
 
 package depends.matrix.core;
 
+import depends.deptypes.DependencyType;
 import multilang.depends.util.file.path.FilenameWritter;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static depends.deptypes.DependencyType.POSSIBLE_DEP;
 
 public class DependencyMatrix {
+	private static final byte TYPE_UNKNOWN = 0;
+	private static final byte TYPE_ACCEPTED = 1;
+	private static final byte TYPE_FILTERED = 2;
 	private final boolean outputSelfDependencies;
-	private HashMap<String, DependencyPair> dependencyPairs = new HashMap<>();
+	private SparseDependencyCells cells;
     private ArrayList<String> nodes = new ArrayList<>();
     private HashMap<Integer,String> nodeIdToName = new HashMap<>();
 	private List<String> typeFilter;
+	private byte[] typeFilterState = new byte[DependencyType.MAX_ORDINALS];
 
 	public DependencyMatrix(int size, List<String> typeFilter,boolean outputSelfDependencies) {
-		dependencyPairs = new HashMap<>(size);
+		cells = new SparseDependencyCells(size);
 		this.typeFilter = typeFilter;
 		this.outputSelfDependencies = outputSelfDependencies;
 	}
 
+	/**
+	 * The cells as DependencyPair objects, which are built on iterating.
+	 * No dependencies could be added after the cells are read.
+	 */
 	public Collection<DependencyPair> getDependencyPairs() {
-        return dependencyPairs.values();
+		getCells();
+		return new AbstractCollection<DependencyPair>() {
+			@Override
+			public Iterator<DependencyPair> iterator() {
+				return new DependencyPairIterator(getCells());
+			}
+
+			@Override
+			public int size() {
+				return getCells().cellCount();
+			}
+		};
     }
 
+	/**
+	 * @return the cells in compressed-sparse-row layout
+	 */
+	public DependencyCells getCells() {
+		cells.freeze();
+		return cells;
+	}
+
 	public void addNode(String name, int id) {
 		this.nodes.add(name);
 		this.nodeIdToName.put(id, name);
 	}
 	
 	public void addDependency(String depType, Integer from, Integer to,  int weight,List<DependencyDetail> details) {
-		if (typeFilter!=null && (!typeFilter.contains(depType)))
+		int kind = kindOf(depType);
+		if (!accept(kind, from, to))
 			return;
-		if (!outputSelfDependencies && from.equals(to) ){
-			return;
-		}
-		if( from == -1 || to == -1) {
-		    return;
-		}
-		if (dependencyPairs.get(DependencyPair.key(from,to))==null) {
-			dependencyPairs.put(DependencyPair.key(from,to),new DependencyPair(from,to));
-		}
-		DependencyPair dependencyPair = dependencyPairs.get(DependencyPair.key(from,to));
-		dependencyPair.addDependency(depType,weight,details);
+		cells.add(from, to, kind, weight, details);
 	}
 	
 	public void addDependency(String depType, Integer from, Integer to,  int weight,DependencyDetail detail) {
-		if (typeFilter!=null && (!typeFilter.contains(depType.replace(POSSIBLE_DEP,""))))
+		int kind = kindOf(depType);
+		if (!accept(kind, from, to))
 			return;
-		if (!outputSelfDependencies && from.equals(to) ){
-			return;
-		}
-		if( from == -1 || to == -1) {
+		cells.add(from, to, kind, weight, detail);
+	}
+
+	/**
+	 * Add a dependency by the type ordinal of DependencyType, without building the type name
+	 */
+	public void addDependency(int typeOrdinal, boolean possible, int from, int to, int weight, DependencyDetail detail) {
+		int kind = SparseDependencyCells.kindOf(typeOrdinal, possible);
+		if (!accept(kind, from, to))
 			return;
-		}
-		if (dependencyPairs.get(DependencyPair.key(from,to))==null) {
-			dependencyPairs.put(DependencyPair.key(from,to),new DependencyPair(from,to));
-		}
-		DependencyPair dependencyPair = dependencyPairs.get(DependencyPair.key(from,to));
-		dependencyPair.addDependency(depType,weight,detail);
+		cells.add(from, to, kind, weight, detail);
+	}
+
+	private int kindOf(String depType) {
+		if (depType.endsWith(POSSIBLE_DEP))
+			return SparseDependencyCells.kindOf(DependencyType.ordinalOf(
+					depType.substring(0, depType.length() - POSSIBLE_DEP.length())), true);
+		return SparseDependencyCells.kindOf(DependencyType.ordinalOf(depType), false);
+	}
+
+	private boolean accept(int kind, int from, int to) {
+		if (typeFilter!=null && !acceptType(kind & ~SparseDependencyCells.POSSIBLE))
+			return false;
+		if (!outputSelfDependencies && from==to)
+			return false;
+		if (from == -1 || to == -1)
+			return false;
+		return true;
+	}
+
+	private boolean acceptType(int typeOrdinal) {
+		if (typeFilterState[typeOrdinal]==TYPE_UNKNOWN)
+			typeFilterState[typeOrdinal] = typeFilter.contains(DependencyType.nameOf(typeOrdinal))?TYPE_ACCEPTED:TYPE_FILTERED;
+		return typeFilterState[typeOrdinal]==TYPE_ACCEPTED;
 	}
 	
     public ArrayList<String> getNodes() {
@@ -106,7 +153,53 @@ public class DependencyMatrix {
 		return nodeIdToName.get(key);
 	}
 
+	/**
+	 * @return the ids of the nodes, in ascending order
+	 */
+	public int[] getNodeIds() {
+		int[] ids = new int[nodeIdToName.size()];
+		int i = 0;
+		for (Integer id : nodeIdToName.keySet()) {
+			ids[i++] = id;
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
 	public boolean isOutputSelfDependencies(){
 		return outputSelfDependencies;
 	}
+
+	private static class DependencyPairIterator implements Iterator<DependencyPair> {
+		private final DependencyCells cells;
+		private int row = -1;
+		private int cell = 0;
+		private int end = 0;
+
+		DependencyPairIterator(DependencyCells cells) {
+			this.cells = cells;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (cell >= end && row + 1 < cells.rowCount()) {
+				row++;
+				cell = cells.rowStart(row);
+				end = cells.rowEnd(row);
+			}
+			return cell < end;
+		}
+
+		@Override
+		public DependencyPair next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			DependencyPair pair = new DependencyPair(cells.rowId(row), cells.column(cell));
+			for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+				pair.addDependency(cells.type(value), cells.weight(value), cells.details(value));
+			}
+			cell++;
+			return pair;
+		}
+	}
 }
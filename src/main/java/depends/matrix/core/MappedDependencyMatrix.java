@@ -0,0 +1,288 @@
+package depends.matrix.core;
+
+import depends.deptypes.DependencyType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only view of a matrix, with the node ids of the origin matrix mapped
+ * to new ids: a permutation when the nodes are ordered, or a many-to-one
+ * mapping when the nodes of the same name (or of the same level) are merged.
+ * Only the mapping and the rows of the origin matrix of each new row are kept;
+ * the cells are translated when a row is read, and the cells (and their
+ * values) mapped to the same new cell are merged as if they were added into a
+ * new matrix, with the details lists shared with the origin matrix.
+ */
+public class MappedDependencyMatrix extends DependencyMatrix {
+	private final DependencyMatrix origin;
+	/* the new id of originIds[i] is mappedIds[i] */
+	private final int[] originIds;
+	private final int[] mappedIds;
+	/* the rows of the origin matrix merged into row i are originRows[originRowStart[i]..originRowStart[i+1]) */
+	private final int[] rowIds;
+	private final int[] originRowStart;
+	private final int[] originRows;
+	private volatile int cellCount = -1;
+
+	/**
+	 * @param originIds the node ids of the origin matrix, in ascending order
+	 * @param mappedIds the new id of each of originIds, or -1 if the node is dropped
+	 */
+	public MappedDependencyMatrix(DependencyMatrix origin, int[] originIds, int[] mappedIds,
+			boolean outputSelfDependencies) {
+		super(0, null, outputSelfDependencies);
+		this.origin = origin;
+		this.originIds = originIds;
+		this.mappedIds = mappedIds;
+
+		DependencyCells cells = origin.getCells();
+		int maxId = -1;
+		for (int id : mappedIds)
+			maxId = Math.max(maxId, id);
+		int[] rowsOfId = new int[maxId + 2];
+		int[] mappedRows = new int[cells.rowCount()];
+		for (int row = 0; row < cells.rowCount(); row++) {
+			mappedRows[row] = mappedIdOf(cells.rowId(row));
+			if (mappedRows[row] >= 0)
+				rowsOfId[mappedRows[row] + 1]++;
+		}
+		int rows = 0;
+		for (int id = 0; id <= maxId; id++) {
+			if (rowsOfId[id + 1] > 0)
+				rows++;
+			rowsOfId[id + 1] += rowsOfId[id];
+		}
+		rowIds = new int[rows];
+		originRowStart = new int[rows + 1];
+		originRows = new int[rowsOfId[maxId + 1]];
+		int row = 0;
+		for (int id = 0; id <= maxId; id++) {
+			if (rowsOfId[id + 1] == rowsOfId[id])
+				continue;
+			rowIds[row] = id;
+			originRowStart[row] = rowsOfId[id];
+			row++;
+		}
+		originRowStart[rows] = originRows.length;
+		/* origin rows are in ascending order in each new row */
+		for (int originRow = 0; originRow < mappedRows.length; originRow++) {
+			if (mappedRows[originRow] >= 0)
+				originRows[rowsOfId[mappedRows[originRow]]++] = originRow;
+		}
+	}
+
+	private int mappedIdOf(int originId) {
+		int i = Arrays.binarySearch(originIds, originId);
+		return i < 0 ? -1 : mappedIds[i];
+	}
+
+	/**
+	 * @return a new reader of the cells, which should be used in one thread
+	 */
+	@Override
+	public DependencyCells getCells() {
+		return new Reader();
+	}
+
+	@Override
+	public void addDependency(String depType, Integer from, Integer to, int weight, List<DependencyDetail> details) {
+		throw new IllegalStateException("dependencies could not be added into a mapped matrix");
+	}
+
+	@Override
+	public void addDependency(String depType, Integer from, Integer to, int weight, DependencyDetail detail) {
+		throw new IllegalStateException("dependencies could not be added into a mapped matrix");
+	}
+
+	@Override
+	public void addDependency(int typeOrdinal, boolean possible, int from, int to, int weight, DependencyDetail detail) {
+		throw new IllegalStateException("dependencies could not be added into a mapped matrix");
+	}
+
+	private int countCells() {
+		if (cellCount < 0) {
+			Reader reader = new Reader();
+			int count = 0;
+			for (int row = 0; row < rowIds.length; row++) {
+				count += reader.rowEnd(row);
+			}
+			cellCount = count;
+		}
+		return cellCount;
+	}
+
+	private class Reader implements DependencyCells {
+		private final DependencyCells cells = origin.getCells();
+		private int loadedRow = -1;
+		/* the values of the origin cells of the row, ordered by (new 'to' id, the order they are read) */
+		private long[] order = new long[16];
+		private int[] pendingKind = new int[16];
+		private int[] pendingWeight = new int[16];
+		@SuppressWarnings("unchecked")
+		private List<DependencyDetail>[] pendingDetails = new List[16];
+		/* the merged cells of the row */
+		private int rowCells;
+		private int[] columns = new int[16];
+		private int[] valueStart = new int[17];
+		private int[] valueKind = new int[16];
+		private int[] valueWeight = new int[16];
+		@SuppressWarnings("unchecked")
+		private List<DependencyDetail>[] valueDetails = new List[16];
+
+		private void load(int row) {
+			if (row == loadedRow)
+				return;
+			int count = 0;
+			for (int i = originRowStart[row]; i < originRowStart[row + 1]; i++) {
+				int originRow = originRows[i];
+				for (int cell = cells.rowStart(originRow); cell < cells.rowEnd(originRow); cell++) {
+					int to = mappedIdOf(cells.column(cell));
+					if (to < 0 || (!isOutputSelfDependencies() && to == rowIds[row]))
+						continue;
+					for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+						if (count == order.length)
+							growPending();
+						order[count] = ((long) to << 32) | count;
+						pendingKind[count] = cells.kind(value);
+						pendingWeight[count] = cells.weight(value);
+						pendingDetails[count] = cells.details(value);
+						count++;
+					}
+				}
+			}
+			Arrays.sort(order, 0, count);
+			ensureCapacity(count);
+			rowCells = 0;
+			int values = 0;
+			for (int i = 0; i < count; i++) {
+				int to = (int) (order[i] >> 32);
+				int pending = (int) order[i];
+				if (rowCells == 0 || columns[rowCells - 1] != to) {
+					columns[rowCells] = to;
+					valueStart[rowCells] = values;
+					rowCells++;
+				}
+				int value = valueStart[rowCells - 1];
+				while (value < values && valueKind[value] != pendingKind[pending])
+					value++;
+				if (value == values) {
+					valueKind[value] = pendingKind[pending];
+					valueWeight[value] = 0;
+					valueDetails[value] = pendingDetails[pending];
+					values++;
+				} else if (!pendingDetails[pending].isEmpty()) {
+					if (valueDetails[value].isEmpty()) {
+						valueDetails[value] = pendingDetails[pending];
+					} else {
+						List<DependencyDetail> merged = new ArrayList<>(valueDetails[value]);
+						merged.addAll(pendingDetails[pending]);
+						valueDetails[value] = merged;
+					}
+				}
+				valueWeight[value] += pendingWeight[pending];
+			}
+			valueStart[rowCells] = values;
+			Arrays.fill(pendingDetails, 0, count, null);
+			loadedRow = row;
+		}
+
+		private void growPending() {
+			int capacity = order.length * 2;
+			order = Arrays.copyOf(order, capacity);
+			pendingKind = Arrays.copyOf(pendingKind, capacity);
+			pendingWeight = Arrays.copyOf(pendingWeight, capacity);
+			pendingDetails = Arrays.copyOf(pendingDetails, capacity);
+		}
+
+		private void ensureCapacity(int values) {
+			if (values <= columns.length)
+				return;
+			columns = new int[values];
+			valueStart = new int[values + 1];
+			valueKind = new int[values];
+			valueWeight = new int[values];
+			valueDetails = Arrays.copyOf(valueDetails, values);
+		}
+
+		@Override
+		public int cellCount() {
+			return countCells();
+		}
+
+		@Override
+		public int rowCount() {
+			return rowIds.length;
+		}
+
+		@Override
+		public int rowId(int row) {
+			return rowIds[row];
+		}
+
+		@Override
+		public int rowOf(int from) {
+			return Arrays.binarySearch(rowIds, from);
+		}
+
+		@Override
+		public int rowStart(int row) {
+			load(row);
+			return 0;
+		}
+
+		@Override
+		public int rowEnd(int row) {
+			load(row);
+			return rowCells;
+		}
+
+		@Override
+		public int column(int cell) {
+			return columns[cell];
+		}
+
+		@Override
+		public int valueStart(int cell) {
+			return valueStart[cell];
+		}
+
+		@Override
+		public int valueEnd(int cell) {
+			return valueStart[cell + 1];
+		}
+
+		@Override
+		public int kind(int value) {
+			return valueKind[value];
+		}
+
+		@Override
+		public int typeOrdinal(int value) {
+			return valueKind[value] & ~SparseDependencyCells.POSSIBLE;
+		}
+
+		@Override
+		public boolean possible(int value) {
+			return (valueKind[value] & SparseDependencyCells.POSSIBLE) != 0;
+		}
+
+		@Override
+		public String type(int value) {
+			if (possible(value))
+				return DependencyType.possibleNameOf(typeOrdinal(value));
+			return DependencyType.nameOf(typeOrdinal(value));
+		}
+
+		@Override
+		public int weight(int value) {
+			return valueWeight[value];
+		}
+
+		@Override
+		public List<DependencyDetail> details(int value) {
+			return valueDetails[value];
+		}
+	}
+}
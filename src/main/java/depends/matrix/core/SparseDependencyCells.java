@@ -0,0 +1,345 @@
+package depends.matrix.core;
+
+import depends.deptypes.DependencyType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The cells of a dependency matrix, without boxing the node ids or building
+ * string keys.
+ * While building, a cell is found by the long key (from<<32|to) in an
+ * open-addressing table, and the weights of each dependency type of the cell
+ * are chained in primitive arrays.
+ * When the cells are read the first time, they are frozen into a
+ * compressed-sparse-row layout:
+ * - rows: the distinct 'from' ids in order, with the range of their cells
+ * - cells: the 'to' id, sorted in a row, with the range of their values
+ * - values: the dependency type (ordinal in DependencyType, with the possible flag
+ *   in the high bit), the weight, and the details if any
+ * No cells could be added after frozen.
+ */
+public class SparseDependencyCells implements DependencyCells {
+	public static final int POSSIBLE = 0x80;
+	private static final int TYPE_MASK = 0x7F;
+	private static final int EMPTY = -1;
+
+	/* building */
+	private long[] slotKeys;
+	private int[] slotCells;
+	private int slotMask;
+	private long[] cellKeys;
+	private int[] cellHead;
+	private int[] cellTail;
+	private byte[] entryKind;
+	private int[] entryWeight;
+	private int[] entryNext;
+	private List<DependencyDetail>[] entryDetails;
+	private int entryCount;
+	private int cellCount;
+
+	/* frozen */
+	private boolean frozen = false;
+	private int[] rowIds;
+	private int[] rowStart;
+	private int[] columns;
+	private int[] valueStart;
+	private byte[] valueKind;
+	private int[] valueWeight;
+	private List<DependencyDetail>[] valueDetails;
+
+	public SparseDependencyCells(int expectedCells) {
+		int capacity = 16;
+		while (capacity < expectedCells / 0.5)
+			capacity <<= 1;
+		slotKeys = new long[capacity];
+		slotCells = new int[capacity];
+		Arrays.fill(slotCells, EMPTY);
+		slotMask = capacity - 1;
+		int cells = Math.max(16, expectedCells);
+		cellKeys = new long[cells];
+		cellHead = new int[cells];
+		cellTail = new int[cells];
+		entryKind = new byte[cells];
+		entryWeight = new int[cells];
+		entryNext = new int[cells];
+	}
+
+	public static long keyOf(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	public static int kindOf(int typeOrdinal, boolean possible) {
+		return typeOrdinal | (possible ? POSSIBLE : 0);
+	}
+
+	public void add(int from, int to, int kind, int weight, DependencyDetail detail) {
+		int entry = entryOf(cellOf(keyOf(from, to)), kind);
+		entryWeight[entry] += weight;
+		if (detail != null)
+			detailsOf(entry).add(detail);
+	}
+
+	public void add(int from, int to, int kind, int weight, List<DependencyDetail> details) {
+		int entry = entryOf(cellOf(keyOf(from, to)), kind);
+		entryWeight[entry] += weight;
+		if (details != null)
+			detailsOf(entry).addAll(details);
+	}
+
+	private int cellOf(long key) {
+		if (frozen)
+			throw new IllegalStateException("cells could not be added after the matrix is read");
+		int slot = slotOf(key);
+		while (slotCells[slot] != EMPTY) {
+			if (slotKeys[slot] == key)
+				return slotCells[slot];
+			slot = (slot + 1) & slotMask;
+		}
+		if (cellCount == cellKeys.length) {
+			int capacity = cellCount + (cellCount >> 1);
+			cellKeys = Arrays.copyOf(cellKeys, capacity);
+			cellHead = Arrays.copyOf(cellHead, capacity);
+			cellTail = Arrays.copyOf(cellTail, capacity);
+		}
+		int cell = cellCount++;
+		cellKeys[cell] = key;
+		cellHead[cell] = EMPTY;
+		cellTail[cell] = EMPTY;
+		slotKeys[slot] = key;
+		slotCells[slot] = cell;
+		if (cellCount * 2 > slotCells.length)
+			rehash();
+		return cell;
+	}
+
+	private int slotOf(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & slotMask;
+	}
+
+	private void rehash() {
+		int capacity = slotCells.length * 2;
+		slotKeys = new long[capacity];
+		slotCells = new int[capacity];
+		Arrays.fill(slotCells, EMPTY);
+		slotMask = capacity - 1;
+		for (int cell = 0; cell < cellCount; cell++) {
+			int slot = slotOf(cellKeys[cell]);
+			while (slotCells[slot] != EMPTY)
+				slot = (slot + 1) & slotMask;
+			slotKeys[slot] = cellKeys[cell];
+			slotCells[slot] = cell;
+		}
+	}
+
+	/* the types of a cell are chained in the order they are added; usually there are only a few */
+	private int entryOf(int cell, int kind) {
+		for (int entry = cellHead[cell]; entry != EMPTY; entry = entryNext[entry]) {
+			if (entryKind[entry] == (byte) kind)
+				return entry;
+		}
+		if (entryCount == entryKind.length) {
+			int capacity = entryCount + (entryCount >> 1);
+			entryKind = Arrays.copyOf(entryKind, capacity);
+			entryWeight = Arrays.copyOf(entryWeight, capacity);
+			entryNext = Arrays.copyOf(entryNext, capacity);
+			if (entryDetails != null)
+				entryDetails = Arrays.copyOf(entryDetails, capacity);
+		}
+		int entry = entryCount++;
+		entryKind[entry] = (byte) kind;
+		entryNext[entry] = EMPTY;
+		if (cellTail[cell] == EMPTY)
+			cellHead[cell] = entry;
+		else
+			entryNext[cellTail[cell]] = entry;
+		cellTail[cell] = entry;
+		return entry;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<DependencyDetail> detailsOf(int entry) {
+		if (entryDetails == null)
+			entryDetails = new List[entryKind.length];
+		if (entryDetails[entry] == null)
+			entryDetails[entry] = new ArrayList<>();
+		return entryDetails[entry];
+	}
+
+	/**
+	 * Build the compressed-sparse-row layout, ordered by (from, to); the building
+	 * structures are released.
+	 */
+	@SuppressWarnings("unchecked")
+	public void freeze() {
+		if (frozen)
+			return;
+		long[] sortedKeys = Arrays.copyOf(cellKeys, cellCount);
+		Arrays.sort(sortedKeys);
+		int rows = 0;
+		for (int i = 0; i < cellCount; i++) {
+			if (i == 0 || (int) (sortedKeys[i] >> 32) != (int) (sortedKeys[i - 1] >> 32))
+				rows++;
+		}
+		rowIds = new int[rows];
+		rowStart = new int[rows + 1];
+		columns = new int[cellCount];
+		valueStart = new int[cellCount + 1];
+		valueKind = new byte[entryCount];
+		valueWeight = new int[entryCount];
+		if (entryDetails != null)
+			valueDetails = new List[entryCount];
+		int row = -1;
+		int value = 0;
+		for (int i = 0; i < cellCount; i++) {
+			long key = sortedKeys[i];
+			int from = (int) (key >> 32);
+			if (row < 0 || rowIds[row] != from) {
+				row++;
+				rowIds[row] = from;
+				rowStart[row] = i;
+			}
+			columns[i] = (int) key;
+			valueStart[i] = value;
+			int cell = findCell(key);
+			for (int entry = cellHead[cell]; entry != EMPTY; entry = entryNext[entry]) {
+				valueKind[value] = entryKind[entry];
+				valueWeight[value] = entryWeight[entry];
+				if (valueDetails != null)
+					valueDetails[value] = entryDetails[entry];
+				value++;
+			}
+		}
+		rowStart[rows] = cellCount;
+		valueStart[cellCount] = value;
+		slotKeys = null;
+		slotCells = null;
+		cellKeys = null;
+		cellHead = null;
+		cellTail = null;
+		entryKind = null;
+		entryWeight = null;
+		entryNext = null;
+		entryDetails = null;
+		frozen = true;
+	}
+
+	private int findCell(long key) {
+		int slot = slotOf(key);
+		while (slotKeys[slot] != key)
+			slot = (slot + 1) & slotMask;
+		return slotCells[slot];
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	@Override
+	public int cellCount() {
+		return cellCount;
+	}
+
+	@Override
+	public int rowCount() {
+		freeze();
+		return rowIds.length;
+	}
+
+	/**
+	 * @return the 'from' id of the row
+	 */
+	@Override
+	public int rowId(int row) {
+		freeze();
+		return rowIds[row];
+	}
+
+	/**
+	 * @return the row of the 'from' id, or a negative value if there is no cell from it
+	 */
+	@Override
+	public int rowOf(int from) {
+		freeze();
+		return Arrays.binarySearch(rowIds, from);
+	}
+
+	/**
+	 * @return the first cell of the row; the cells of a row are [rowStart(row), rowEnd(row))
+	 */
+	@Override
+	public int rowStart(int row) {
+		freeze();
+		return rowStart[row];
+	}
+
+	@Override
+	public int rowEnd(int row) {
+		freeze();
+		return rowStart[row + 1];
+	}
+
+	/**
+	 * @return the 'to' id of the cell
+	 */
+	@Override
+	public int column(int cell) {
+		freeze();
+		return columns[cell];
+	}
+
+	/**
+	 * @return the first value of the cell; the values of a cell are [valueStart(cell), valueEnd(cell))
+	 */
+	@Override
+	public int valueStart(int cell) {
+		freeze();
+		return valueStart[cell];
+	}
+
+	@Override
+	public int valueEnd(int cell) {
+		freeze();
+		return valueStart[cell + 1];
+	}
+
+	@Override
+	public int kind(int value) {
+		return valueKind[value] & 0xFF;
+	}
+
+	@Override
+	public int typeOrdinal(int value) {
+		return valueKind[value] & TYPE_MASK;
+	}
+
+	@Override
+	public boolean possible(int value) {
+		return (valueKind[value] & POSSIBLE) != 0;
+	}
+
+	/**
+	 * @return the type name, with POSSIBLE_DEP suffix if it is a possible dependency
+	 */
+	@Override
+	public String type(int value) {
+		if (possible(value))
+			return DependencyType.possibleNameOf(typeOrdinal(value));
+		return DependencyType.nameOf(typeOrdinal(value));
+	}
+
+	@Override
+	public int weight(int value) {
+		return valueWeight[value];
+	}
+
+	@Override
+	public List<DependencyDetail> details(int value) {
+		if (valueDetails == null || valueDetails[value] == null)
+			return Collections.emptyList();
+		return valueDetails[value];
+	}
+}
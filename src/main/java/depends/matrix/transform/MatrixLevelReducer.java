@@ -25,56 +25,168 @@ SOFTWARE.
 package depends.matrix.transform;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 import depends.matrix.core.DependencyMatrix;
-import depends.matrix.core.DependencyPair;
-import depends.matrix.core.DependencyValue;
-
+import depends.matrix.core.MappedDependencyMatrix;
+
+/**
+ * Reduce the nodes of a matrix to the given level of their names (see
+ * calcuateNodeAtLevel). The names are split into a path trie once, so that the
+ * nodes of any level are found by the path of the node, and the reduced
+ * matrices are views of the origin matrix (see MappedDependencyMatrix), so
+ * several levels (e.g. 1..getMaxLevel()) could be computed at once.
+ */
 public class MatrixLevelReducer {
 
 	private DependencyMatrix origin;
 	private int level;
-	HashMap<String, Integer> nodesMap = new HashMap<>();
+	/* the ids of the origin nodes, and the trie nodes of their path (depth 0..n) in pathNodes[pathStart[i]..pathStart[i+1]) */
+	private int[] ids;
+	private int[] pathStart;
+	private int[] pathNodes;
+	/* the trie nodes; the node 0 is the root, whose children are the name prefixes (depth 0) */
+	private ArrayList<String> trieNames;
+	private ArrayList<HashMap<String, Integer>> trieChildren;
+	private int maxLevel;
 
 	public MatrixLevelReducer(DependencyMatrix matrix, String levelString) {
 		this.origin = matrix;
 		this.level = stringToPositiveInt(levelString);
 	}
 
+	public MatrixLevelReducer(DependencyMatrix matrix) {
+		this(matrix, null);
+	}
+
 	public DependencyMatrix shrinkToLevel() {
-		if (level < 0)
-			return origin;
+		return shrinkToLevel(level);
+	}
 
-		ArrayList<String> reMappedNodes = new ArrayList<>();
-		for (String node : origin.getNodes()) {
-			String newNode = calcuateNodeAtLevel(node, level);
-			if (!reMappedNodes.contains(newNode)) {
-				reMappedNodes.add(newNode);
-			}
+	/**
+	 * @return the matrix reduced to each of the levels, in the same order
+	 */
+	public List<DependencyMatrix> shrinkToLevels(int... levels) {
+		List<DependencyMatrix> matrices = new ArrayList<>();
+		for (int level : levels) {
+			matrices.add(shrinkToLevel(level));
 		}
-		// sort nodes by name
-		reMappedNodes.sort(new Comparator<String>() {
-			@Override
-			public int compare(String o1, String o2) {
-				return o1.compareTo(o2);
+		return matrices;
+	}
+
+	/**
+	 * @return the level of the longest node name; the nodes of any higher level are the origin ones
+	 */
+	public int getMaxLevel() {
+		buildTrie();
+		return maxLevel;
+	}
+
+	public DependencyMatrix shrinkToLevel(int level) {
+		if (level <= 0)
+			return origin;
+		buildTrie();
+		int[] bucketOf = new int[ids.length];
+		int[] trieBucket = new int[trieNames.size()];
+		Arrays.fill(trieBucket, -1);
+		ArrayList<Integer> buckets = new ArrayList<>();
+		for (int i = 0; i < ids.length; i++) {
+			int depth = Math.min(level, pathStart[i + 1] - pathStart[i] - 1);
+			bucketOf[i] = pathNodes[pathStart[i] + depth];
+			if (trieBucket[bucketOf[i]] < 0) {
+				trieBucket[bucketOf[i]] = 0;
+				buckets.add(bucketOf[i]);
 			}
-		});
-	    DependencyMatrix ordered = new DependencyMatrix(0,null,false);
-		for (int id=0;id<reMappedNodes.size();id++) {
-			nodesMap.put(reMappedNodes.get(id), id);
-			ordered.addNode(reMappedNodes.get(id), id);
+		}
+		// sort nodes by name; the trie nodes of the same name (by different splitters) are merged
+		buckets.sort((a, b) -> trieNames.get(a).compareTo(trieNames.get(b)));
+		ArrayList<String> reMappedNodes = new ArrayList<>();
+		for (int bucket : buckets) {
+			String name = trieNames.get(bucket);
+			if (reMappedNodes.isEmpty() || !reMappedNodes.get(reMappedNodes.size() - 1).equals(name))
+				reMappedNodes.add(name);
+			trieBucket[bucket] = reMappedNodes.size() - 1;
+		}
+		int[] newIds = new int[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			newIds[i] = trieBucket[bucketOf[i]];
 		}
 
-		// add dependencies
-		for (DependencyPair dependencyPair : origin.getDependencyPairs()) {
-			for (DependencyValue dep : dependencyPair.getDependencies()) {
-				ordered.addDependency(dep.getType(), translateToNewId(dependencyPair.getFrom()),
-						translateToNewId(dependencyPair.getTo()), dep.getWeight(), dep.getDetails());
+		// the dependencies are merged when the reduced matrix is read
+		DependencyMatrix reduced = new MappedDependencyMatrix(origin, ids, newIds, false);
+		for (int id = 0; id < reMappedNodes.size(); id++) {
+			reduced.addNode(reMappedNodes.get(id), id);
+		}
+		return reduced;
+	}
+
+	private void buildTrie() {
+		if (ids != null)
+			return;
+		trieNames = new ArrayList<>();
+		trieChildren = new ArrayList<>();
+		newTrieNode("");
+		int[] nodeIds = origin.getNodeIds();
+		pathStart = new int[nodeIds.length + 1];
+		int[] path = new int[16];
+		int pathSize = 0;
+		for (int i = 0; i < nodeIds.length; i++) {
+			pathStart[i] = pathSize;
+			String node = origin.getNodeName(nodeIds[i]);
+			char splitter = '.';
+			if (node.indexOf('\\') >= 0)
+				splitter = '\\';
+			else if (node.indexOf('/') >= 0)
+				splitter = '/';
+			String prefix = (node.length() > 0 && node.charAt(0) == splitter) ? String.valueOf(splitter) : "";
+			int trieNode = childOf(0, prefix, prefix);
+			int depth = 0;
+			if (pathSize == path.length)
+				path = Arrays.copyOf(path, pathSize * 2);
+			path[pathSize++] = trieNode;
+			int start = 0;
+			while (start <= node.length()) {
+				int end = node.indexOf(splitter, start);
+				if (end < 0)
+					end = node.length();
+				if (end > start) {
+					String segment = node.substring(start, end);
+					String key = depth == 0 ? segment : splitter + segment;
+					trieNode = childOf(trieNode, key, trieNames.get(trieNode) + key);
+					depth++;
+					if (pathSize == path.length)
+						path = Arrays.copyOf(path, pathSize * 2);
+					path[pathSize++] = trieNode;
+				}
+				start = end + 1;
 			}
+			maxLevel = Math.max(maxLevel, depth);
 		}
-		return ordered;
+		pathStart[nodeIds.length] = pathSize;
+		pathNodes = Arrays.copyOf(path, pathSize);
+		ids = nodeIds;
+	}
+
+	private int childOf(int trieNode, String key, String name) {
+		HashMap<String, Integer> children = trieChildren.get(trieNode);
+		if (children == null) {
+			children = new HashMap<>();
+			trieChildren.set(trieNode, children);
+		}
+		Integer child = children.get(key);
+		if (child == null) {
+			child = newTrieNode(name);
+			children.put(key, child);
+		}
+		return child;
+	}
+
+	private int newTrieNode(String name) {
+		trieNames.add(name);
+		trieChildren.add(null);
+		return trieNames.size() - 1;
 	}
 
 	public static String calcuateNodeAtLevel(String node, int level) {
@@ -110,11 +222,6 @@ public class MatrixLevelReducer {
 		return prefix + sb.toString();
 	}
 
-	private Integer translateToNewId(Integer id) {
-		String newNode = calcuateNodeAtLevel(origin.getNodeName(id), level);
-		return nodesMap.get(newNode);
-	}
-
 	private int stringToPositiveInt(String level) {
 		int result = -1;
 		try {
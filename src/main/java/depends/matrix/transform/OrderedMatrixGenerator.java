@@ -24,13 +24,17 @@ SOFTWARE.
 */
 
 import depends.matrix.core.DependencyMatrix;
-import depends.matrix.core.DependencyPair;
-import depends.matrix.core.DependencyValue;
+import depends.matrix.core.MappedDependencyMatrix;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 
+/**
+ * Order the nodes of the matrix by name. The ordered matrix is a view of the
+ * matrix with the node ids permuted (the nodes of the same name are merged),
+ * so the cells are not copied.
+ */
 public class OrderedMatrixGenerator  {
 	private DependencyMatrix matrix;
 	public OrderedMatrixGenerator(DependencyMatrix matrix) {
@@ -46,25 +50,20 @@ public class OrderedMatrixGenerator  {
 			}
 		});
 	    
-	    DependencyMatrix ordered = new DependencyMatrix((int)(matrix.getDependencyPairs().size()/0.75+1),null,matrix.isOutputSelfDependencies());
 		HashMap<String, Integer> nodesMap = new HashMap<>();
 		for (int id=0;id<reMappedNodes.size();id++) {
 			nodesMap.put(reMappedNodes.get(id), id);
-			ordered.addNode(reMappedNodes.get(id), id);
+		}
+		int[] ids = matrix.getNodeIds();
+		int[] newIds = new int[ids.length];
+		for (int i=0;i<ids.length;i++) {
+			newIds[i] = nodesMap.get(matrix.getNodeName(ids[i]));
 		}
 
-		//add dependencies
-		for (DependencyPair dependencyPair:matrix.getDependencyPairs()) {
-			Integer from = dependencyPair.getFrom();
-			Integer to = dependencyPair.getTo();
-			for (DependencyValue dep:dependencyPair.getDependencies()) {
-				ordered.addDependency(dep.getType(), translateToNewId( nodesMap, from), translateToNewId( nodesMap, to), dep.getWeight(),dep.getDetails());
-			}
+		DependencyMatrix ordered = new MappedDependencyMatrix(matrix,ids,newIds,matrix.isOutputSelfDependencies());
+		for (int id=0;id<reMappedNodes.size();id++) {
+			ordered.addNode(reMappedNodes.get(id), id);
 		}
 		return ordered;
 	}
-	private Integer translateToNewId( HashMap<String, Integer> nodesMap, Integer id) {
-		return nodesMap.get(matrix.getNodeName(id));
-	}
-
 }
@@ -35,17 +35,23 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class BindingResolver implements IBindingResolver{
 
 	private BuiltInType buildInTypeManager = new EmptyBuiltInType();
 	private ImportLookupStrategy importLookupStrategy;
-	private Set<UnsolvedBindings> unsolvedSymbols = new HashSet<>();
+	private Set<UnsolvedBindings> unsolvedSymbols = ConcurrentHashMap.newKeySet();
 	private EntityRepo repo;
 
 	private boolean eagerExpressionResolve = false;
 	private boolean isCollectUnsolvedBindings = false;
 	private boolean isDuckTypingDeduce = true;
+	private boolean parallelResolve = false;
+	private int threads = 1;
 	private static Logger logger = LoggerFactory.getLogger(IBindingResolver.class);
 
 	public BindingResolver(AbstractLangProcessor langProcessor,
@@ -55,18 +61,25 @@ public class BindingResolver implements IBindingResolver{
 		this.buildInTypeManager = langProcessor.getBuiltInType();
 		this.isCollectUnsolvedBindings = isCollectUnsolvedBindings;
 		this.isDuckTypingDeduce = isDuckTypingDeduce;
-		unsolvedSymbols= new HashSet<>();
+		unsolvedSymbols= ConcurrentHashMap.newKeySet();
 		importLookupStrategy.setBindingResolver(this);
 	}
 
 
 	@Override
 	public  Set<UnsolvedBindings> resolveAllBindings(boolean isEagerExpressionResolve) {
+		List<Entity> files = new ArrayList<>();
+		repo.sortedFileIterator().forEachRemaining(files::add);
+		return resolveBindingsOf(files, isEagerExpressionResolve);
+	}
+
+	@Override
+	public Set<UnsolvedBindings> resolveBindingsOf(Collection<Entity> files, boolean isEagerExpressionResolve) {
 		System.out.println("Resolve type bindings....");
 		if (logger.isInfoEnabled()) {
 			logger.info("Resolve type bindings...");
 		}
-		resolveTypes(isEagerExpressionResolve);
+		resolveTypes(new ArrayList<>(files), isEagerExpressionResolve);
 		System.out.println("Dependency analaysing....");
 		if (logger.isInfoEnabled()) {
 			logger.info("Dependency analaysing...");
@@ -76,13 +89,60 @@ public class BindingResolver implements IBindingResolver{
 	}
 
 
-	private void resolveTypes(boolean eagerExpressionResolve) {
+	private void resolveTypes(List<Entity> files, boolean eagerExpressionResolve) {
 		this.eagerExpressionResolve = eagerExpressionResolve;
-		Iterator<Entity> iterator = repo.sortedFileIterator();
-		while(iterator.hasNext()) {
-			Entity entity= iterator.next();
-			entity.inferEntities(this);
+		/* expressions resolved eagerly change the entities of other files, so they are always resolved one by one */
+		if (eagerExpressionResolve || !parallelResolve) {
+			for (Entity entity:files) {
+				entity.inferEntities(this);
+			}
+			return;
+		}
+		/* The imports and type hierarchies are resolved before the others, so the lookup
+		 * through them does not depend on the order of files, and the result
+		 * is the same with any number of threads */
+		forEachFile(files, file -> {
+			if (file instanceof FileEntity)
+				((FileEntity) file).inferImports(this);
+		});
+		forEachFile(files, file -> inferInheritedTypes(file));
+		forEachFile(files, file -> file.inferEntities(this));
+	}
+
+	private void inferInheritedTypes(Entity entity) {
+		if (entity instanceof TypeEntity) {
+			((TypeEntity) entity).inferInheritedTypes(this);
 		}
+		for (Entity child : entity.getChildren()) {
+			inferInheritedTypes(child);
+		}
+	}
+
+	private void forEachFile(List<Entity> files, Consumer<Entity> action) {
+		if (threads <= 1) {
+			files.forEach(action);
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.submit(() -> files.parallelStream().forEach(action)).get();
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Resolve the imports and type hierarchies of all files first, and then the other
+	 * entities of the files, with the given number of threads. 1 means resolve in the
+	 * current thread. It only applies to the languages which do not resolve expressions
+	 * eagerly; by default the files are resolved one by one in the current thread.
+	 * @param threads
+	 */
+	public void setParallelResolve(int threads) {
+		this.parallelResolve = true;
+		this.threads = threads;
 	}
 	
 
@@ -142,8 +202,9 @@ public class BindingResolver implements IBindingResolver{
 		// qualified name will first try global name directly
 		if (rawName.startsWith(".")) {
 			rawName = rawName.substring(1);
-			if (repo.getEntity(rawName) != null)
-				return repo.getEntity(rawName);
+			Entity entity = repo.getEntity(rawName);
+			if (entity != null)
+				return entity;
 		}
 		Entity entity = null;
 		int indexCount = 0;
@@ -155,8 +216,8 @@ public class BindingResolver implements IBindingResolver{
 				break;
 			}
 			if (importLookupStrategy.supportGlobalNameLookup()) {
-				if (repo.getEntity(name) != null) {
-					entity = repo.getEntity(name);
+				entity = repo.getEntity(name);
+				if (entity != null) {
 					break;
 				}
 			}
@@ -17,6 +17,11 @@ public interface IBindingResolver {
      */
     Set<UnsolvedBindings> resolveAllBindings(boolean isEagerExpressionResolve);
 
+    /**
+     * Resolve bindings of the given files only, the other files are already resolved
+     */
+    Set<UnsolvedBindings> resolveBindingsOf(Collection<Entity> files, boolean isEagerExpressionResolve);
+
     /**
      * Different languages have different strategy on how to compute the imported types
      * and the imported files.
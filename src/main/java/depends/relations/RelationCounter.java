@@ -29,8 +29,15 @@ import depends.entity.*;
 import depends.entity.repo.EntityRepo;
 import depends.extractor.AbstractLangProcessor;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class RelationCounter {
@@ -40,6 +47,9 @@ public class RelationCounter {
 	private EntityRepo repo;
 	private boolean callAsImpl;
 	private AbstractLangProcessor langProcessor;
+	private int threads = 1;
+	private boolean prefetch = false;
+	private static final int PREFETCH_FILES = 4;
 
 	public RelationCounter(EntityRepo repo, AbstractLangProcessor langProcessor, IBindingResolver bindingResolver) {
 		this.entities = repo.getFileEntities();
@@ -49,12 +59,116 @@ public class RelationCounter {
 		this.langProcessor = langProcessor;
 	}
 	
+	/**
+	 * The number of threads used to compute relations of files. 1 (default) means
+	 * compute in the current thread. The languages which resolve expressions here and
+	 * link calls to implementations (c/c++) are always computed in one thread, because
+	 * the links depend on the order of files.
+	 * @param threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Load the expressions of the next files from disk in background while the current
+	 * files are computed. It is always on if the relations are computed with more than one
+	 * thread; by default the expressions of a file are loaded in the current thread
+	 * when the file is computed.
+	 * @param prefetch
+	 */
+	public void setPrefetch(boolean prefetch) {
+		this.prefetch = prefetch;
+	}
+
+	/**
+	 * Compute relations file by file.
+	 */
 	public void computeRelations() {
-		entities.forEach(entity->
-		computeRelationOf(entity));
+		computeRelations(entities);
+	}
+
+	/**
+	 * Compute relations of the given files only; used when the other files
+	 * keep their relations of the previous run
+	 */
+	public void computeRelations(Collection<Entity> fileEntities) {
+		int workers = threads;
+		if (callAsImpl && !bindingResolver.isEagerExpressionResolve())
+			workers = 1;
+		if (workers <= 1 && !prefetch) {
+			fileEntities.forEach(entity->
+			computeRelationOf(entity, true));
+			return;
+		}
+		List<Entity> files = new ArrayList<>(fileEntities);
+		Semaphore prefetchWindow = new Semaphore(Math.max(PREFETCH_FILES, workers * 2));
+		ExecutorService prefetcher = Executors.newSingleThreadExecutor();
+		List<Future<?>> prefetched = new ArrayList<>();
+		for (Entity file:files) {
+			prefetched.add(prefetcher.submit(() -> {
+				prefetchWindow.acquire();
+				reloadExpressions(file);
+				return null;
+			}));
+		}
+		/* files are taken in order, so the file waited for is always in the prefetch window */
+		AtomicInteger nextFile = new AtomicInteger(0);
+		Runnable worker = () -> {
+			int index;
+			while ((index = nextFile.getAndIncrement()) < files.size()) {
+				try {
+					waitFor(prefetched.get(index));
+					computeRelationOf(files.get(index), false);
+				} finally {
+					prefetchWindow.release();
+				}
+			}
+		};
+		try {
+			if (workers <= 1) {
+				worker.run();
+			} else {
+				ExecutorService pool = Executors.newFixedThreadPool(workers);
+				List<Future<?>> results = new ArrayList<>();
+				for (int i = 0; i < workers; i++) {
+					results.add(pool.submit(worker));
+				}
+				pool.shutdown();
+				try {
+					for (Future<?> result:results) {
+						waitFor(result);
+					}
+				} finally {
+					pool.shutdownNow();
+				}
+			}
+		} finally {
+			prefetcher.shutdownNow();
+		}
+	}
+
+	private void waitFor(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private void reloadExpressions(Entity entity) {
+		if (!entity.inScope())
+			return;
+		if (entity instanceof ContainerEntity) {
+			((ContainerEntity) entity).reloadExpression(repo);
+		}
+		entity.getChildren().forEach(child->reloadExpressions(child));
 	}
 
-	private void computeRelationOf(Entity entity) {
+	private void computeRelationOf(Entity entity, boolean reloadExpression) {
 		if (!entity.inScope())
 			return;
 		if (entity instanceof FileEntity) {
@@ -67,14 +181,14 @@ public class RelationCounter {
 			computeTypeRelations((TypeEntity)entity);
 		}
 		if (entity instanceof ContainerEntity) {
-			computeContainerRelations((ContainerEntity)entity);
+			computeContainerRelations((ContainerEntity)entity, reloadExpression);
 		}
-		entity.getChildren().forEach(child->computeRelationOf(child));
+		entity.getChildren().forEach(child->computeRelationOf(child, reloadExpression));
 	}
 
 	
 
-	private void computeContainerRelations(ContainerEntity entity) {
+	private void computeContainerRelations(ContainerEntity entity, boolean reloadExpression) {
 		for (VarEntity var:entity.getVars()) {
 			if (var.getType()!=null)
 				entity.addRelation(buildRelation(entity,DependencyType.CONTAIN,var.getType(),var.getLocation()));
@@ -92,7 +206,8 @@ public class RelationCounter {
 			entity.addRelation(buildRelation(entity,DependencyType.MIXIN,mixin));
 		}
 		
-		entity.reloadExpression(repo);
+		if (reloadExpression)
+			entity.reloadExpression(repo);
 		if (!bindingResolver.isEagerExpressionResolve())
 		{
 			entity.resolveExpressions(bindingResolver);
@@ -0,0 +1,146 @@
+package depends.relations;
+
+import depends.deptypes.DependencyType;
+import depends.entity.Entity;
+import depends.entity.Location;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The relations from one entity, kept in columns of primitive arrays instead of
+ * a list of Relation objects:
+ * - the target entity
+ * - the dependency type ordinal (see DependencyType.ordinalOf), with the possible flag in the high bit
+ * - the line where the relation happens
+ * The target is kept as a reference rather than an id, since some targets
+ * (candidate types, built-in types of python) are not in the entity repo.
+ * Relation objects are only built on demand by the view of asList().
+ */
+public class RelationList implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int POSSIBLE = 0x80;
+	private static final int TYPE_MASK = 0x7F;
+	private static final int NO_LINE = Integer.MIN_VALUE;
+
+	private transient Entity[] targets = new Entity[4];
+	private transient byte[] kinds = new byte[4];
+	private transient int[] lines = new int[4];
+	private transient int size = 0;
+
+	public void add(Relation relation) {
+		add(relation.getType(), relation.getEntity(), relation.getFromLine(), relation.possible());
+	}
+
+	public void add(String type, Entity target, Integer line, boolean possible) {
+		if (size == targets.length) {
+			int capacity = size + (size >> 1);
+			targets = Arrays.copyOf(targets, capacity);
+			kinds = Arrays.copyOf(kinds, capacity);
+			lines = Arrays.copyOf(lines, capacity);
+		}
+		targets[size] = target;
+		kinds[size] = (byte) (DependencyType.ordinalOf(type) | (possible ? POSSIBLE : 0));
+		lines[size] = line == null ? NO_LINE : line;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Entity target(int index) {
+		return targets[index];
+	}
+
+	public int typeOrdinal(int index) {
+		return kinds[index] & TYPE_MASK;
+	}
+
+	public String type(int index) {
+		return DependencyType.nameOf(typeOrdinal(index));
+	}
+
+	public boolean possible(int index) {
+		return (kinds[index] & POSSIBLE) != 0;
+	}
+
+	/**
+	 * @return the type name, with POSSIBLE_DEP suffix if it is a possible dependency
+	 */
+	public String typeWithFlag(int index) {
+		if (possible(index))
+			return DependencyType.possibleNameOf(typeOrdinal(index));
+		return type(index);
+	}
+
+	public boolean hasLine(int index) {
+		return lines[index] != NO_LINE;
+	}
+
+	public int line(int index) {
+		return lines[index];
+	}
+
+	public Relation get(int index) {
+		Location location = null;
+		if (hasLine(index)) {
+			location = new Location();
+			location.setLine(lines[index]);
+		}
+		return new Relation(type(index), targets[index], location, possible(index));
+	}
+
+	/**
+	 * A read-only view of the relations; each get() builds a new Relation object
+	 */
+	public List<Relation> asList() {
+		return new AbstractList<Relation>() {
+			@Override
+			public Relation get(int index) {
+				if (index >= size)
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+				return RelationList.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/* the type ordinals of custom types depend on the order they are met in a
+	 * run, so the type names are written instead */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeObject(targets[i]);
+			out.writeUTF(type(i));
+			out.writeBoolean(possible(i));
+			out.writeInt(lines[i]);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int count = in.readInt();
+		int capacity = Math.max(count, 4);
+		targets = new Entity[capacity];
+		kinds = new byte[capacity];
+		lines = new int[capacity];
+		for (int i = 0; i < count; i++) {
+			Entity target = (Entity) in.readObject();
+			String type = in.readUTF();
+			boolean possible = in.readBoolean();
+			int line = in.readInt();
+			add(type, target, line == NO_LINE ? null : line, possible);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package depends.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import depends.entity.repo.InMemoryEntityRepo;
+import multilang.depends.util.file.TemporaryFile;
+
+public class MappedExpressionStoreTest {
+
+	@Test
+	public void test_reload_expressions() {
+		TemporaryFile.reset();
+		MappedExpressionStore store = new MappedExpressionStore(TemporaryFile.getInstance());
+		ArrayList<Expression> expressions = buildExpressions(0, 3);
+		store.write(10, expressions);
+		store.write(11, buildExpressions(100, 1));
+
+		ArrayList<Expression> reloaded = store.read(10);
+		assertEquals(3, reloaded.size());
+		for (Expression expr : reloaded) {
+			expr.reload(new InMemoryEntityRepo(), reloaded);
+		}
+		Expression call = reloaded.get(1);
+		assertEquals(expressions.get(1).toString(), call.toString());
+		assertTrue(call.isCall());
+		assertFalse(call.isSet());
+		assertEquals(Integer.valueOf(2), call.getLocation().getLine());
+		assertEquals("java.util.List", call.getRawType().getName());
+		assertEquals("[String]", call.getRawType().getArguments().toString());
+		assertEquals(reloaded.get(0), call.getParent());
+		assertNull(reloaded.get(0).getParent());
+		assertEquals(1, store.read(11).size());
+		assertNull(store.read(12));
+		store.close();
+	}
+
+	@Test
+	public void test_latest_record_is_reloaded() {
+		TemporaryFile.reset();
+		MappedExpressionStore store = new MappedExpressionStore(TemporaryFile.getInstance());
+		store.write(10, buildExpressions(0, 3));
+		store.write(10, buildExpressions(0, 5));
+		assertEquals(5, store.read(10).size());
+		assertEquals(1, store.segmentCount());
+		store.close();
+	}
+
+	private ArrayList<Expression> buildExpressions(int firstId, int count) {
+		ArrayList<Expression> expressions = new ArrayList<>();
+		Expression root = null;
+		for (int i = 0; i < count; i++) {
+			Expression expr = new Expression(firstId + i);
+			expr.setText("text of " + i + " 中");
+			expr.setIdentifier("name" + (i % 7));
+			List<GenericName> arguments = new ArrayList<>();
+			arguments.add(GenericName.build("String"));
+			expr.setRawType(GenericName.build("java.util.List", arguments));
+			expr.setCall(i % 2 == 1);
+			expr.setLine(i + 1);
+			if (root == null)
+				root = expr;
+			else
+				expr.setParent(root);
+			expressions.add(expr);
+		}
+		return expressions;
+	}
+
+	private static final int CONTAINERS = 20000;
+	private static final int EXPRESSIONS_PER_CONTAINER = 10;
+
+	/**
+	 * Compare spill/reload of the mapped store with one java serialization file per container.
+	 * Run it manually.
+	 */
+	@Ignore
+	@Test
+	public void testSpillAndReload() throws IOException, ClassNotFoundException {
+		for (int k = 0; k < 3; k++) {
+			TemporaryFile.reset();
+			List<ArrayList<Expression>> containers = new ArrayList<>();
+			for (int i = 0; i < CONTAINERS; i++) {
+				containers.add(buildExpressions(i * EXPRESSIONS_PER_CONTAINER, EXPRESSIONS_PER_CONTAINER));
+			}
+
+			long start = System.currentTimeMillis();
+			long size = 0;
+			for (int i = 0; i < CONTAINERS; i++) {
+				FileOutputStream fileOut = new FileOutputStream(TemporaryFile.getInstance().exprPath(i));
+				ObjectOutputStream out = new ObjectOutputStream(fileOut);
+				out.writeObject(containers.get(i));
+				out.close();
+				fileOut.close();
+				size += new File(TemporaryFile.getInstance().exprPath(i)).length();
+			}
+			long spilled = System.currentTimeMillis();
+			int reloaded = 0;
+			for (int i = 0; i < CONTAINERS; i++) {
+				FileInputStream fileIn = new FileInputStream(TemporaryFile.getInstance().exprPath(i));
+				ObjectInputStream in = new ObjectInputStream(fileIn);
+				reloaded += ((ArrayList<?>) in.readObject()).size();
+				in.close();
+				fileIn.close();
+			}
+			System.out.println("object stream: spill " + (spilled - start) + "ms, reload "
+					+ (System.currentTimeMillis() - spilled) + "ms, " + size + " bytes in " + CONTAINERS
+					+ " files, " + reloaded + " expressions");
+
+			MappedExpressionStore store = new MappedExpressionStore(TemporaryFile.getInstance());
+			start = System.currentTimeMillis();
+			for (int i = 0; i < CONTAINERS; i++) {
+				store.write(i, containers.get(i));
+			}
+			spilled = System.currentTimeMillis();
+			reloaded = 0;
+			for (int i = 0; i < CONTAINERS; i++) {
+				reloaded += store.read(i).size();
+			}
+			System.out.println("mapped store: spill " + (spilled - start) + "ms, reload "
+					+ (System.currentTimeMillis() - spilled) + "ms, " + store.diskSize() + " bytes in "
+					+ store.segmentCount() + " files, " + reloaded + " expressions");
+			store.close();
+			TemporaryFile.getInstance().delete();
+		}
+	}
+}
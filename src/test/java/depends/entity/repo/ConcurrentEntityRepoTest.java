@@ -0,0 +1,54 @@
+package depends.entity.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import depends.entity.Entity;
+import depends.entity.FileEntity;
+import depends.entity.GenericName;
+import depends.entity.MultiDeclareEntities;
+import depends.entity.TypeEntity;
+
+public class ConcurrentEntityRepoTest {
+
+	@Test
+	public void test_same_name_added_in_parallel_are_merged() {
+		ConcurrentEntityRepo repo = new ConcurrentEntityRepo();
+		IntStream.range(0, 1000).parallel().forEach(i -> {
+			repo.add(new TypeEntity(GenericName.build("a.b.C"), null, repo.generateId()));
+		});
+		Entity entity = repo.getEntity("a.b.C");
+		assertTrue(entity instanceof MultiDeclareEntities);
+		assertEquals(1000, ((MultiDeclareEntities) entity).getEntities().size());
+	}
+
+	@Test
+	public void test_ids_are_unique_in_parallel() {
+		ConcurrentEntityRepo repo = new ConcurrentEntityRepo();
+		long count = IntStream.range(0, 10000).parallel().map(i -> repo.generateId()).distinct().count();
+		assertEquals(10000, count);
+	}
+
+	@Test
+	public void test_file_order_is_stable() {
+		ConcurrentEntityRepo repo = new ConcurrentEntityRepo();
+		String[] files = new String[] { "/src/c.java", "/src/a.java", "/src/b.java" };
+		for (String file : files) {
+			repo.add(new FileEntity(false, file, repo.generateId()));
+			repo.completeFile(file);
+		}
+		List<String> names = new ArrayList<>();
+		Iterator<Entity> iterator = repo.sortedFileIterator();
+		while (iterator.hasNext()) {
+			names.add(iterator.next().getQualifiedName());
+		}
+		assertEquals("[/src/a.java, /src/b.java, /src/c.java]", names.toString());
+	}
+}
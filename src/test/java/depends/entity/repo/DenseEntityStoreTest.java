@@ -0,0 +1,46 @@
+package depends.entity.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import depends.entity.Entity;
+import depends.entity.GenericName;
+import depends.entity.TypeEntity;
+
+public class DenseEntityStoreTest {
+
+	@Test
+	public void test_get_by_id() {
+		DenseEntityStore store = new DenseEntityStore();
+		TypeEntity a = new TypeEntity(GenericName.build("a"), null, 3);
+		TypeEntity b = new TypeEntity(GenericName.build("b"), null, 1000000);
+		store.put(a);
+		store.put(b);
+		store.put(TypeEntity.buildInType);
+		assertEquals(a, store.get(3));
+		assertEquals(b, store.get(1000000));
+		assertEquals(TypeEntity.buildInType, store.get(-1));
+		assertNull(store.get(4));
+		assertNull(store.get(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void test_iterate_in_id_order() {
+		DenseEntityStore store = new DenseEntityStore();
+		int[] ids = new int[] { 9000, 5, 0, 70000, 4096 };
+		for (int id : ids) {
+			store.put(new TypeEntity(GenericName.build("t" + id), null, id));
+		}
+		store.put(TypeEntity.buildInType);
+		List<Integer> result = new ArrayList<>();
+		for (Entity entity : store) {
+			result.add(entity.getId());
+		}
+		assertEquals("[-1, 0, 5, 4096, 9000, 70000]", result.toString());
+	}
+}
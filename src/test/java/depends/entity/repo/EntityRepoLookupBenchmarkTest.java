@@ -0,0 +1,97 @@
+package depends.entity.repo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import depends.entity.Entity;
+import depends.entity.GenericName;
+import depends.entity.TypeEntity;
+import depends.extractor.AbstractLangProcessor;
+import depends.extractor.UnsolvedBindings;
+import depends.extractor.java.JavaProcessor;
+import depends.relations.BindingResolver;
+import multilang.depends.util.file.FileUtil;
+
+/**
+ * Benchmarks of the name lookup of entity repo. Run them manually;
+ * the project used by testBuildDependencies and testResolveAllBindings could be set
+ * with -Ddepends.bench.src=...
+ */
+public class EntityRepoLookupBenchmarkTest {
+	private static final int SIZE = 200000;
+	private static final int ROUNDS = 20;
+
+	@Ignore
+	@Test
+	public void testNameLookup() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < SIZE; i++) {
+			names.add("org.example.project.module" + (i % 50) + ".service.impl.SomeLongClassName" + i);
+		}
+		Map<String, Entity> treeIndex = new TreeMap<>();
+		EntityRepo repo = new InMemoryEntityRepo();
+		for (String name : names) {
+			TypeEntity type = new TypeEntity(GenericName.build(name), null, repo.generateId());
+			treeIndex.put(type.getQualifiedName(), type);
+			repo.add(type);
+		}
+		for (int k = 0; k < 3; k++) {
+			/* the names looked up during resolving are built on the fly, so copy them */
+			int found = 0;
+			long start = System.currentTimeMillis();
+			for (int r = 0; r < ROUNDS; r++) {
+				for (String name : names) {
+					if (treeIndex.get(new String(name.toCharArray())) != null) found++;
+				}
+			}
+			System.out.println("tree index: " + (System.currentTimeMillis() - start) + "ms, found " + found);
+			found = 0;
+			start = System.currentTimeMillis();
+			for (int r = 0; r < ROUNDS; r++) {
+				for (String name : names) {
+					if (repo.getEntity(new String(name.toCharArray())) != null) found++;
+				}
+			}
+			System.out.println("entity repo: " + (System.currentTimeMillis() - start) + "ms, found " + found);
+		}
+	}
+
+	@Ignore
+	@Test
+	public void testBuildDependencies() {
+		String src = FileUtil.uniqFilePath(System.getProperty("depends.bench.src", "./src/main/java"));
+		AbstractLangProcessor processor = new JavaProcessor();
+		BindingResolver bindingResolver = new BindingResolver(processor, false, true);
+		long start = System.currentTimeMillis();
+		processor.buildDependencies(src, new String[] {}, bindingResolver);
+		System.out.println("parse and resolve " + src + ": " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	@Ignore
+	@Test
+	public void testResolveAllBindings() {
+		String src = FileUtil.uniqFilePath(System.getProperty("depends.bench.src", "./src/main/java"));
+		for (int k = 0; k < 3; k++) {
+			AbstractLangProcessor processor = new JavaProcessor();
+			long[] elapsed = new long[1];
+			/* only the resolving is timed; the parsing is not affected by the name index */
+			BindingResolver bindingResolver = new BindingResolver(processor, false, true) {
+				@Override
+				public Set<UnsolvedBindings> resolveAllBindings(boolean isEagerExpressionResolve) {
+					long start = System.currentTimeMillis();
+					Set<UnsolvedBindings> unsolved = super.resolveAllBindings(isEagerExpressionResolve);
+					elapsed[0] = System.currentTimeMillis() - start;
+					return unsolved;
+				}
+			};
+			processor.buildDependencies(src, new String[] {}, bindingResolver);
+			System.out.println("resolveAllBindings " + src + ": " + elapsed[0] + "ms");
+		}
+	}
+}
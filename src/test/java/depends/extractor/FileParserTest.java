@@ -0,0 +1,117 @@
+package depends.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import depends.entity.FileEntity;
+import depends.entity.repo.EntityRepo;
+import depends.entity.repo.InMemoryEntityRepo;
+
+public class FileParserTest {
+	private EntityRepo entityRepo = new InMemoryEntityRepo();
+	private AtomicInteger parsed = new AtomicInteger();
+
+	private class TestFileParser extends FileParser {
+		private final Runnable body;
+
+		TestFileParser(Runnable body) {
+			this.entityRepo = FileParserTest.this.entityRepo;
+			this.body = body;
+		}
+
+		@Override
+		protected void parseFile(String filePath) throws IOException {
+			entityRepo.add(new FileEntity(false, filePath, entityRepo.generateId(), true));
+			body.run();
+			parsed.incrementAndGet();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void test_file_parsed_by_another_thread_should_be_waited() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean completed = new AtomicBoolean(false);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> owner = executor.submit(() -> {
+				new TestFileParser(() -> {
+					started.countDown();
+					sleep(300);
+					completed.set(true);
+				}).parse("/depends/test/Waited.java");
+				return null;
+			});
+			started.await();
+			new TestFileParser(() -> {}).parse("/depends/test/Waited.java");
+			assertTrue(completed.get());
+			owner.get();
+			assertEquals(1, parsed.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void test_cyclic_parse_in_two_threads_should_not_dead_lock() throws Exception {
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> a = executor.submit(() -> {
+				new TestFileParser(() -> {
+					bothStarted.countDown();
+					await(bothStarted);
+					parse("/depends/test/B.h");
+				}).parse("/depends/test/A.h");
+				return null;
+			});
+			Future<?> b = executor.submit(() -> {
+				new TestFileParser(() -> {
+					bothStarted.countDown();
+					await(bothStarted);
+					parse("/depends/test/A.h");
+				}).parse("/depends/test/B.h");
+				return null;
+			});
+			a.get();
+			b.get();
+			assertEquals(2, parsed.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private void parse(String file) {
+		try {
+			new TestFileParser(() -> {}).parse(file);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
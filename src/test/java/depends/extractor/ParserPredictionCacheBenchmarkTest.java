@@ -0,0 +1,102 @@
+package depends.extractor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import depends.entity.repo.EntityRepo;
+import depends.entity.repo.InMemoryEntityRepo;
+import depends.extractor.golang.GoFileParser;
+import depends.extractor.golang.GoProcessor;
+import depends.extractor.java.JavaFileParser;
+import depends.extractor.java.JavaProcessor;
+import depends.extractor.kotlin.KotlinFileParser;
+import depends.extractor.kotlin.KotlinProcessor;
+import depends.relations.BindingResolver;
+
+/**
+ * Parse throughput with and without the shared prediction cache. Run them manually;
+ * the sources could be set with -Ddepends.bench.java=..., -Ddepends.bench.go=...
+ */
+public class ParserPredictionCacheBenchmarkTest {
+	private static final int ROUNDS = 3;
+
+	@Ignore
+	@Test
+	public void testJava() throws IOException {
+		BindingResolver bindingResolver = new BindingResolver(new JavaProcessor(), false, true);
+		benchmark("java", System.getProperty("depends.bench.java", "./src/main/java"), ".java",
+				(shared) -> (repo) -> new JavaFileParser(repo, bindingResolver, shared));
+	}
+
+	@Ignore
+	@Test
+	public void testGo() throws IOException {
+		BindingResolver bindingResolver = new BindingResolver(new GoProcessor(), false, true);
+		benchmark("go", System.getProperty("depends.bench.go", "./src/test/resources/go-code-examples"), ".go",
+				(shared) -> (repo) -> new GoFileParser(repo, bindingResolver, shared));
+	}
+
+	@Ignore
+	@Test
+	public void testKotlin() throws IOException {
+		BindingResolver bindingResolver = new BindingResolver(new KotlinProcessor(), false, true);
+		Path src = Files.createTempDirectory("depends.kotlin");
+		try {
+			for (int i = 0; i < 50; i++) {
+				Files.write(src.resolve("Sample" + i + ".kt"), kotlinSample(i).getBytes(StandardCharsets.UTF_8));
+			}
+			benchmark("kotlin", src.toString(), ".kt",
+					(shared) -> (repo) -> new KotlinFileParser(repo, bindingResolver, shared));
+		} finally {
+			FileUtils.deleteDirectory(src.toFile());
+		}
+	}
+
+	private void benchmark(String lang, String src, String suffix,
+			Function<Boolean, Function<EntityRepo, FileParser>> parsers) throws IOException {
+		List<String> files;
+		try (Stream<Path> paths = Files.walk(Paths.get(src))) {
+			files = paths.map(Path::toString).filter(file -> file.endsWith(suffix)).collect(Collectors.toList());
+		}
+		for (int round = 0; round < ROUNDS; round++) {
+			for (boolean shared : new boolean[] { false, true }) {
+				EntityRepo repo = new InMemoryEntityRepo();
+				Function<EntityRepo, FileParser> parserOf = parsers.apply(shared);
+				long start = System.currentTimeMillis();
+				for (String file : files) {
+					parserOf.apply(repo).parse(file);
+				}
+				long time = System.currentTimeMillis() - start;
+				System.out.println(lang + (shared ? " shared cache: " : " without shared cache: ") + files.size() + " files, "
+						+ time + "ms, " + (files.size() * 1000L / Math.max(1, time)) + " files/s");
+			}
+		}
+	}
+
+	private String kotlinSample(int i) {
+		return "package sample" + (i % 10) + "\n\n" +
+				"import kotlin.collections.List\n\n" +
+				"data class Item" + i + "(val name: String, val count: Int)\n\n" +
+				"class Service" + i + "(private val items: List<Item" + i + ">) {\n" +
+				"    fun total(): Int = items.filter { it.count > 0 }.map { it.count }.sum()\n" +
+				"    fun names(): String {\n" +
+				"        val builder = StringBuilder()\n" +
+				"        for (item in items) {\n" +
+				"            if (item.name.isNotEmpty()) builder.append(item.name).append(',')\n" +
+				"        }\n" +
+				"        return when (builder.length) { 0 -> \"none\" else -> builder.toString() }\n" +
+				"    }\n" +
+				"}\n";
+	}
+}
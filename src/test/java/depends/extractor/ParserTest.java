@@ -27,6 +27,8 @@ public abstract class ParserTest {
 		bindingResolver = new BindingResolver(langProcessor,true,false);
 		langProcessor.bindingResolver = bindingResolver;
 		TemporaryFile.reset();
+		/* the relations asserted by the tests should not depend on the timing of GC */
+		ContainerEntity.setStrongExpressionMap(true);
 	}
 
 	protected  void init(boolean duckTypingDeduce){
@@ -34,6 +36,7 @@ public abstract class ParserTest {
 		bindingResolver = new BindingResolver(langProcessor,false,duckTypingDeduce);
 		langProcessor.bindingResolver = bindingResolver;
 		TemporaryFile.reset();
+		ContainerEntity.setStrongExpressionMap(true);
 	}
 
 	public Set<UnsolvedBindings> resolveAllBindings() {
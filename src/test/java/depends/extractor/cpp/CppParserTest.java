@@ -3,6 +3,7 @@ package depends.extractor.cpp;
 import depends.extractor.ParserTest;
 import depends.extractor.cpp.cdt.CdtCppFileParser;
 import depends.extractor.cpp.cdt.PreprocessorHandler;
+import multilang.depends.util.file.TemporaryFile;
 
 import java.util.ArrayList;
 
@@ -14,10 +15,14 @@ public abstract class CppParserTest extends ParserTest{
 		langProcessor = new CppProcessor();
     	preprocessorHandler = new PreprocessorHandler("./src/test/resources/cpp-code-examples/",new ArrayList<>());
 		super.init();
-    	macroRepo = new MacroEhcacheRepo(entityRepo);
+    	macroRepo = new MacroMappedRepo(TemporaryFile.getInstance());
     }
 	
 	public CppFileParser createParser() {
 		return new  CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver,macroRepo );
 	}
+
+	public CppFileParser createParser(boolean prescanIncludes) {
+		return new  CdtCppFileParser(entityRepo, preprocessorHandler, bindingResolver,macroRepo,prescanIncludes );
+	}
 }
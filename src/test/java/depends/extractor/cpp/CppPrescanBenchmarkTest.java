@@ -0,0 +1,53 @@
+package depends.extractor.cpp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import depends.entity.repo.EntityRepo;
+import depends.entity.repo.InMemoryEntityRepo;
+import depends.extractor.cpp.cdt.CdtCppFileParser;
+import depends.extractor.cpp.cdt.PreprocessorHandler;
+import depends.relations.BindingResolver;
+
+/**
+ * Parse time of the c/c++ files with the include prescan and with the parse-then-reparse.
+ * Run it manually; the sources could be set with -Ddepends.bench.cpp=...
+ */
+public class CppPrescanBenchmarkTest {
+	private static final int ROUNDS = 3;
+
+	@Ignore
+	@Test
+	public void testPrescan() throws IOException {
+		String src = System.getProperty("depends.bench.cpp", "./src/test/resources/cpp-code-examples/");
+		List<String> files;
+		try (Stream<Path> paths = Files.walk(Paths.get(src))) {
+			files = paths.map(Path::toString).filter(file -> file.endsWith(".cpp") || file.endsWith(".c")
+					|| file.endsWith(".h") || file.endsWith(".hpp")).collect(Collectors.toList());
+		}
+		PreprocessorHandler preprocessorHandler = new PreprocessorHandler(src, new ArrayList<>());
+		BindingResolver bindingResolver = new BindingResolver(new CppProcessor(), false, true);
+		for (int round = 0; round < ROUNDS; round++) {
+			for (boolean prescan : new boolean[] { false, true }) {
+				EntityRepo repo = new InMemoryEntityRepo();
+				MacroRepo macroRepo = new MacroMemoryRepo();
+				long start = System.currentTimeMillis();
+				for (String file : files) {
+					new CdtCppFileParser(repo, preprocessorHandler, bindingResolver, macroRepo, prescan).parse(file);
+				}
+				long time = System.currentTimeMillis() - start;
+				System.out.println("cpp" + (prescan ? " prescan: " : " parse-then-reparse: ") + files.size() + " files, "
+						+ time + "ms, " + repo.getFileEntities().size() + " file entities");
+			}
+		}
+	}
+}
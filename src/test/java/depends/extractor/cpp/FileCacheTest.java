@@ -0,0 +1,70 @@
+package depends.extractor.cpp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.InclusionKind;
+import org.junit.Test;
+
+import depends.extractor.cpp.cdt.FileCache;
+
+public class FileCacheTest {
+
+	@Test
+	public void test_least_recently_used_contents_are_evicted() throws IOException {
+		Path dir = Files.createTempDirectory("depends.filecache");
+		try {
+			String[] files = new String[3];
+			InternalFileContent[] contents = new InternalFileContent[3];
+			for (int i = 0; i < files.length; i++) {
+				File file = dir.resolve("header" + i + ".h").toFile();
+				FileUtils.writeStringToFile(file, new String(new char[500]).replace('\0', 'x'), "UTF-8");
+				files[i] = file.getPath();
+				contents[i] = new InternalFileContent(files[i], InclusionKind.SKIP_FILE);
+			}
+			/* 1000 bytes each in memory, 2 of them fit */
+			FileCache cache = new FileCache(2500);
+			cache.put(files[0], contents[0]);
+			cache.put(files[1], contents[1]);
+			assertSame(contents[0], cache.get(files[0]));
+			cache.put(files[2], contents[2]);
+
+			assertNull(cache.get(files[1]));
+			assertSame(contents[0], cache.get(dir.resolve("..").resolve(dir.getFileName()).resolve("header0.h").toString()));
+			assertSame(contents[2], cache.get(files[2]));
+			assertEquals(2, cache.size());
+			assertEquals(2000, cache.getBytes());
+			assertEquals(3, cache.getHits());
+			assertEquals(1, cache.getMisses());
+			assertEquals(1, cache.getEvictions());
+		} finally {
+			FileUtils.deleteDirectory(dir.toFile());
+		}
+	}
+
+	@Test
+	public void test_content_of_changed_file_is_not_used() throws IOException {
+		Path dir = Files.createTempDirectory("depends.filecache");
+		try {
+			File file = dir.resolve("header.h").toFile();
+			FileUtils.writeStringToFile(file, "int a;", "UTF-8");
+			FileCache cache = new FileCache(FileCache.DEFAULT_MAX_BYTES);
+			cache.put(file.getPath(), new InternalFileContent(file.getPath(), InclusionKind.SKIP_FILE));
+			file.setLastModified(file.lastModified() - 10000);
+
+			assertNull(cache.get(file.getPath()));
+			assertEquals(0, cache.size());
+			assertEquals(0, cache.getBytes());
+		} finally {
+			FileUtils.deleteDirectory(dir.toFile());
+		}
+	}
+}
@@ -37,6 +37,25 @@ public class IncludeRelationTest extends CppParserTest{
         File f = new File(srcs[0]);
         assertEquals(3, entityRepo.getEntity(f.getCanonicalPath()).getRelations().size());
 	}
+
+	@Test
+	public void test_includefiles_should_be_found_by_prescan() throws IOException {
+	    String[] srcs = new String[] {
+	    		"./src/test/resources/cpp-code-examples/includesTest/EntryFile.cpp",
+	    		"./src/test/resources/cpp-code-examples/includesTest/LocalHeader.h",
+	    		"./src/test/resources/cpp-code-examples/includesTest/IndirectIncluded.h",
+	    		"./src/test/resources/cpp-code-examples/includesTest/RelativeInclude.h",
+	    		"./src/test/resources/cpp-code-examples/includesTest/path/Header.h",
+	    	    };
+	    
+	    for (String src:srcs) {
+		    CppFileParser parser = createParser(true);
+		    parser.parse(src);
+	    }
+	    resolveAllBindings();
+        File f = new File(srcs[0]);
+        assertEquals(3, entityRepo.getEntity(f.getCanonicalPath()).getRelations().size());
+	}
 	
 	
 	@Test
@@ -0,0 +1,85 @@
+package depends.extractor.cpp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import multilang.depends.util.file.TemporaryFile;
+
+public class MacroMappedRepoTest {
+	private MacroMappedRepo repo;
+
+	@Before
+	public void setUp() {
+		TemporaryFile.reset();
+		repo = new MacroMappedRepo(TemporaryFile.getInstance());
+		repo.getDefaultMap().put("A", "1");
+		repo.getDefaultMap().put("B", "2");
+	}
+
+	@After
+	public void tearDown() {
+		repo.close();
+	}
+
+	@Test
+	public void test_macros_are_stored_over_default_macros() {
+		Map<String, String> macroMap = new HashMap<>(repo.getDefaultMap());
+		macroMap.put("A", "9");
+		macroMap.put("C", "3");
+		macroMap.put("D", "4");
+		repo.putMacros("a.h", macroMap, new IASTPreprocessorMacroDefinition[0]);
+
+		Map<String, String> macros = repo.get("a.h");
+		Map<String, String> expected = new HashMap<>();
+		expected.put("A", "9");
+		expected.put("B", "2");
+		expected.put("C", "3");
+		expected.put("D", "4");
+		assertEquals(expected, new HashMap<>(macros));
+		assertEquals(4, macros.size());
+		assertEquals("2", macros.get("B"));
+		assertNull(macros.get("E"));
+		assertTrue(repo.get("b.h").isEmpty());
+	}
+
+	@Test
+	public void test_macros_are_merged_when_put_again() {
+		Map<String, String> macroMap = new HashMap<>(repo.getDefaultMap());
+		macroMap.put("C", "3");
+		repo.putMacros("a.h", macroMap, new IASTPreprocessorMacroDefinition[0]);
+		macroMap = new HashMap<>();
+		macroMap.put("D", "4");
+		repo.putMacros("a.h", macroMap, new IASTPreprocessorMacroDefinition[0]);
+
+		Map<String, String> macros = repo.get("a.h");
+		assertEquals(4, macros.size());
+		assertEquals("3", macros.get("C"));
+		assertEquals("4", macros.get("D"));
+	}
+
+	@Test
+	public void test_macros_without_default_macros() {
+		Map<String, String> macroMap = new HashMap<>();
+		macroMap.put("C", "3");
+		repo.putMacros("a.h", macroMap, new IASTPreprocessorMacroDefinition[0]);
+
+		Map<String, String> macros = repo.get("a.h");
+		assertEquals(macroMap, new HashMap<>(macros));
+		assertNull(macros.get("A"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_macros_view_is_read_only() {
+		repo.putMacros("a.h", new HashMap<>(repo.getDefaultMap()), new IASTPreprocessorMacroDefinition[0]);
+		repo.get("a.h").put("C", "3");
+	}
+}
@@ -0,0 +1,139 @@
+package depends.extractor.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import depends.entity.Entity;
+import depends.entity.repo.EntityRepo;
+import depends.entity.repo.EntityRepoSnapshot;
+import depends.relations.BindingResolver;
+import depends.relations.Relation;
+import depends.relations.RelationCounter;
+import multilang.depends.util.file.FileUtil;
+import multilang.depends.util.file.TemporaryFile;
+
+public class JavaIncrementalBuildTest {
+
+	@Test
+	public void should_compute_same_relations_as_full_build() throws IOException {
+		Path work = Files.createTempDirectory("depends.incremental");
+		try {
+			File src = prepare(work);
+			String srcPath = FileUtil.uniqFilePath(src.getPath());
+			String snapshotDir = saveSnapshot(work, srcPath);
+
+			File changed = new File(src, "TypeInferUnderSamePackageB.java");
+			write(changed, read(changed).replace("class SubType {", "class SubType extends TypeInferUnderSamePackageA {"));
+			new File(src, "EmbededTest.java").delete();
+
+			JavaProcessor incrementalProcessor = new JavaProcessor();
+			EntityRepo incrementalRepo = buildIncrementally(incrementalProcessor, srcPath, snapshotDir);
+			assertTrue(incrementalProcessor.getRebuiltFiles().size() < incrementalRepo.getFileEntities().size());
+
+			EntityRepo fullRepo = build(new JavaProcessor(), srcPath, null);
+			assertEquals(relationsOf(fullRepo), relationsOf(incrementalRepo));
+		} finally {
+			FileUtils.deleteDirectory(work.toFile());
+		}
+	}
+
+	@Test
+	public void should_resolve_unchanged_file_to_added_class() throws IOException {
+		Path work = Files.createTempDirectory("depends.incremental");
+		try {
+			File src = prepare(work);
+			write(new File(src, "ReferToAdded.java"), "package x;\nclass ReferToAdded { AddedClass a; AddedInB b; }\n");
+			String srcPath = FileUtil.uniqFilePath(src.getPath());
+			String snapshotDir = saveSnapshot(work, srcPath);
+
+			write(new File(src, "AddedClass.java"), "package x;\nclass AddedClass {}\n");
+			EntityRepo incrementalRepo = buildIncrementally(new JavaProcessor(), srcPath, snapshotDir);
+			EntityRepo fullRepo = build(new JavaProcessor(), srcPath, null);
+			assertTrue(relationsOf(incrementalRepo).contains("x.ReferToAdded Contain x.AddedClass"));
+			assertEquals(relationsOf(fullRepo), relationsOf(incrementalRepo));
+
+			snapshotDir = saveSnapshot(work, srcPath);
+			File changed = new File(src, "TypeInferUnderSamePackageB.java");
+			write(changed, read(changed) + "\nclass AddedInB {}\n");
+			incrementalRepo = buildIncrementally(new JavaProcessor(), srcPath, snapshotDir);
+			fullRepo = build(new JavaProcessor(), srcPath, null);
+			assertTrue(relationsOf(incrementalRepo).contains("x.ReferToAdded Contain x.AddedInB"));
+			assertEquals(relationsOf(fullRepo), relationsOf(incrementalRepo));
+		} finally {
+			FileUtils.deleteDirectory(work.toFile());
+		}
+	}
+
+	private File prepare(Path work) throws IOException {
+		File src = work.resolve("src").toFile();
+		FileUtils.copyDirectory(new File("./src/test/resources/java-code-examples"), src);
+		return src;
+	}
+
+	private String saveSnapshot(Path work, String srcPath) throws IOException {
+		String snapshotDir = work.resolve("snapshot").toString();
+		JavaProcessor processor = new JavaProcessor();
+		EntityRepo repo = build(processor, srcPath, null);
+		new EntityRepoSnapshot("java", srcPath, processor.getFileHashes(), repo).save(snapshotDir);
+		return snapshotDir;
+	}
+
+	private EntityRepo buildIncrementally(JavaProcessor processor, String srcPath, String snapshotDir) throws IOException {
+		EntityRepoSnapshot snapshot = EntityRepoSnapshot.load(snapshotDir);
+		assertTrue(snapshot.matches("java", srcPath));
+		processor.setEntityRepo(snapshot.getRepo());
+		return build(processor, srcPath, snapshot);
+	}
+
+	private String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private EntityRepo build(JavaProcessor processor, String src, EntityRepoSnapshot snapshot) {
+		TemporaryFile.reset();
+		BindingResolver bindingResolver = new BindingResolver(processor, false, true);
+		EntityRepo repo;
+		RelationCounter relationCounter;
+		if (snapshot == null) {
+			repo = processor.buildDependencies(src, new String[] {}, bindingResolver);
+			relationCounter = new RelationCounter(repo, processor, bindingResolver);
+			relationCounter.computeRelations();
+		} else {
+			repo = processor.buildDependencies(src, new String[] {}, new String[] {}, bindingResolver, snapshot);
+			relationCounter = new RelationCounter(repo, processor, bindingResolver);
+			relationCounter.computeRelations(processor.getRebuiltFiles());
+		}
+		return repo;
+	}
+
+	private List<String> relationsOf(EntityRepo repo) {
+		List<String> relations = new ArrayList<>();
+		Iterator<Entity> iterator = repo.entityIterator();
+		while (iterator.hasNext()) {
+			Entity entity = iterator.next();
+			for (Relation relation : entity.getRelations()) {
+				relations.add(entity.getQualifiedName() + " " + relation.getType() + " "
+						+ relation.getEntity().getQualifiedName());
+			}
+		}
+		Collections.sort(relations);
+		return relations;
+	}
+}
@@ -0,0 +1,58 @@
+package depends.extractor.java;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import depends.entity.ContainerEntity;
+import depends.entity.Entity;
+import depends.entity.repo.EntityRepo;
+import depends.relations.BindingResolver;
+import depends.relations.Relation;
+import depends.relations.RelationCounter;
+import multilang.depends.util.file.FileUtil;
+import multilang.depends.util.file.TemporaryFile;
+
+public class JavaParallelResolveTest {
+
+	@Test
+	public void should_compute_same_relations_in_parallel() {
+		ContainerEntity.setStrongExpressionMap(true);
+		try {
+			List<String> serial = resolveRelations(1);
+			List<String> parallel = resolveRelations(4);
+			assertEquals(serial, parallel);
+		} finally {
+			ContainerEntity.setStrongExpressionMap(false);
+		}
+	}
+
+	private List<String> resolveRelations(int threads) {
+		TemporaryFile.reset();
+		String src = FileUtil.uniqFilePath("./src/test/resources/java-code-examples");
+		JavaProcessor processor = new JavaProcessor();
+		BindingResolver bindingResolver = new BindingResolver(processor, false, true);
+		bindingResolver.setParallelResolve(threads);
+		EntityRepo repo = processor.buildDependencies(src, new String[] {}, bindingResolver);
+		RelationCounter relationCounter = new RelationCounter(repo, processor, bindingResolver);
+		relationCounter.setThreads(threads);
+		relationCounter.setPrefetch(true);
+		relationCounter.computeRelations();
+		List<String> relations = new ArrayList<>();
+		Iterator<Entity> iterator = repo.entityIterator();
+		while (iterator.hasNext()) {
+			Entity entity = iterator.next();
+			for (Relation relation : entity.getRelations()) {
+				relations.add(entity.getQualifiedName() + " " + relation.getType() + " "
+						+ relation.getEntity().getQualifiedName());
+			}
+		}
+		Collections.sort(relations);
+		return relations;
+	}
+}
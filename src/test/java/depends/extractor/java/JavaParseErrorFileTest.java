@@ -1,5 +1,7 @@
 package depends.extractor.java;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
 
 import org.junit.Before;
@@ -27,5 +29,15 @@ public class JavaParseErrorFileTest extends JavaParserTest{
         resolveAllBindings();
 	}
 	
+	@Test
+	public void test_file_with_error_should_be_parsed_again_in_ll_mode() throws IOException {
+        JavaFileParser parser = createParser();
+        parser.parse("./src/test/resources/java-code-examples/IncompleteFile.java");
+        parser.parse("./src/test/resources/java-code-examples/EmbededTest.java");
+        resolveAllBindings();
+        assertEquals(2, parser.getTwoStageParses());
+        assertEquals(1, parser.getLLFallbacks());
+        assertEquals(1,entityRepo.getEntity("x.EmbededTest").getRelations().size());
+	}
 	
 }
@@ -0,0 +1,75 @@
+package depends.format;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.LocationInfo;
+import depends.matrix.transform.OrderedMatrixGenerator;
+
+public class DependencyDumperTest {
+	private static final String[] FORMATS = new String[] { "json", "xml", "xls", "dot", "dotx", "plantuml",
+			"briefplantuml", "detail" };
+
+	private DependencyMatrix buildMatrix() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		for (int i = 0; i < 30; i++)
+			matrix.addNode("pkg.Node" + (i % 25), i);
+		for (int i = 0; i < 500; i++) {
+			matrix.addDependency(i % 2 == 0 ? DependencyType.CALL : DependencyType.USE, i % 30, (i * 7) % 30, 1,
+					new DependencyDetail(new LocationInfo("a" + i, "function", "a.java", i),
+							new LocationInfo("b" + i, "type", "b.java", i)));
+		}
+		return new OrderedMatrixGenerator(matrix).build();
+	}
+
+	@Test
+	public void test_parallel_output_is_same_as_sequential() throws IOException, InterruptedException, ExecutionException {
+		Path work = Files.createTempDirectory("depends.dump");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			File sequential = work.resolve("sequential").toFile();
+			File parallel = work.resolve("parallel").toFile();
+			sequential.mkdirs();
+			parallel.mkdirs();
+			DependencyMatrix matrix = buildMatrix();
+			new DependencyDumper(matrix).outputResult("test", sequential.getPath(), FORMATS);
+			for (Future<?> future : new DependencyDumper(matrix).submitResult(executor, "test", parallel.getPath(), FORMATS)) {
+				future.get();
+			}
+			for (String file : new String[] { "test.json", "test.xml", "test.xls", "test.dot", "test.uml", "test.txt" }) {
+				assertArrayEquals(file, Files.readAllBytes(new File(sequential, file).toPath()),
+						Files.readAllBytes(new File(parallel, file).toPath()));
+			}
+		} finally {
+			executor.shutdownNow();
+			FileUtils.deleteDirectory(work.toFile());
+		}
+	}
+
+	@Test
+	public void test_errors_are_reported_per_format() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (Future<?> future : new DependencyDumper(buildMatrix()).submitResult(executor, "test",
+					"/nonexistent/depends/output", FORMATS)) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
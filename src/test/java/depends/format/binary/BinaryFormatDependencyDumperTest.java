@@ -0,0 +1,126 @@
+package depends.format.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.LocationInfo;
+import depends.matrix.transform.OrderedMatrixGenerator;
+
+public class BinaryFormatDependencyDumperTest {
+
+	private DependencyMatrix buildMatrix(int nodes, int edges, boolean withDetails) {
+		DependencyMatrix matrix = new DependencyMatrix(edges, null, false);
+		for (int i = 0; i < nodes; i++)
+			matrix.addNode("pkg/Node" + i + "é.java", i);
+		String[] types = new String[] { DependencyType.CALL, DependencyType.USE,
+				DependencyType.CALL + DependencyType.POSSIBLE_DEP, DependencyType.IMPORT };
+		for (int i = 0; i < edges; i++) {
+			DependencyDetail detail = withDetails && i % 3 == 0
+					? new DependencyDetail(new LocationInfo("from" + i, "function", "a.java", i),
+							new LocationInfo("to" + (i % 7), "type", "b.java", null))
+					: null;
+			matrix.addDependency(types[i % types.length], i % nodes, (int) ((i * 31L + i / nodes) % nodes), 1 + i % 3, detail);
+		}
+		return new OrderedMatrixGenerator(matrix).build();
+	}
+
+	@Test
+	public void test_matrix_is_read_back() throws IOException {
+		Path file = Files.createTempFile("depends", ".dsmb");
+		try {
+			DependencyMatrix matrix = buildMatrix(50, 2000, true);
+			new BinaryFormatDependencyDumper(matrix, "test", null).write(file);
+			BinaryDependencyCells binary = BinaryDependencyCells.load(file);
+			assertEquals("test-sdsm", binary.getName());
+			assertEquals(matrix.getNodes(), binary.getNodes());
+			assertTrue(binary.hasDetails());
+			assertSameCells(matrix.getCells(), binary);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void test_matrix_without_details() throws IOException {
+		Path file = Files.createTempFile("depends", ".dsmb");
+		try {
+			DependencyMatrix matrix = buildMatrix(10, 100, false);
+			new BinaryFormatDependencyDumper(matrix, "test", null).write(file);
+			BinaryDependencyCells binary = BinaryDependencyCells.load(file);
+			assertFalse(binary.hasDetails());
+			assertSameCells(matrix.getCells(), binary);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private void assertSameCells(DependencyCells expected, BinaryDependencyCells binary) {
+		assertEquals(expected.cellCount(), binary.cellCount());
+		for (int node = 0; node < binary.nodeCount(); node++) {
+			int row = expected.rowOf(node);
+			if (row < 0) {
+				assertEquals(binary.rowStart(node), binary.rowEnd(node));
+				continue;
+			}
+			assertEquals(expected.rowEnd(row) - expected.rowStart(row), binary.rowEnd(node) - binary.rowStart(node));
+			for (int i = 0; i < expected.rowEnd(row) - expected.rowStart(row); i++) {
+				int cell = expected.rowStart(row) + i;
+				int binaryCell = binary.rowStart(node) + i;
+				assertEquals(expected.column(cell), binary.column(binaryCell));
+				assertEquals(expected.valueEnd(cell) - expected.valueStart(cell),
+						binary.valueEnd(binaryCell) - binary.valueStart(binaryCell));
+				for (int j = 0; j < expected.valueEnd(cell) - expected.valueStart(cell); j++) {
+					int value = expected.valueStart(cell) + j;
+					int binaryValue = binary.valueStart(binaryCell) + j;
+					assertEquals(expected.type(value), binary.type(binaryValue));
+					assertEquals(expected.kind(value), binary.kind(binaryValue));
+					assertEquals(expected.weight(value), binary.weight(binaryValue));
+					List<DependencyDetail> details = binary.details(binaryValue);
+					assertEquals(expected.details(value).size(), details.size());
+					for (int k = 0; k < details.size(); k++) {
+						assertEquals(expected.details(value).get(k).toString(), details.get(k).toString());
+					}
+				}
+			}
+		}
+	}
+
+	@Ignore
+	@Test
+	public void benchmark_load() throws IOException {
+		Path file = Files.createTempFile("depends", ".dsmb");
+		try {
+			DependencyMatrix matrix = buildMatrix(100000, 10000000, false);
+			long start = System.currentTimeMillis();
+			new BinaryFormatDependencyDumper(matrix, "test", null).write(file);
+			System.out.println("write " + Files.size(file) + " bytes: " + (System.currentTimeMillis() - start) + " ms");
+			start = System.nanoTime();
+			BinaryDependencyCells binary = BinaryDependencyCells.load(file);
+			System.out.println("load " + binary.cellCount() + " cells: " + (System.nanoTime() - start) / 1000000.0 + " ms");
+			start = System.nanoTime();
+			long total = 0;
+			for (int node = 0; node < binary.nodeCount(); node++) {
+				for (int cell = binary.rowStart(node); cell < binary.rowEnd(node); cell++) {
+					for (int value = binary.valueStart(cell); value < binary.valueEnd(cell); value++)
+						total += binary.weight(value);
+				}
+			}
+			System.out.println("scan weights " + total + ": " + (System.nanoTime() - start) / 1000000.0 + " ms");
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package depends.format.excel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+
+public class ExcelFormatDependencyDumperTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DependencyMatrix buildMatrix(int size) {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		for (int i = 0; i < size; i++)
+			matrix.addNode("node" + i, i);
+		for (int i = 0; i < size; i++) {
+			matrix.addDependency(DependencyType.CALL, i, (i * 7 + 3) % size, 1, (DependencyDetail) null);
+			matrix.addDependency(DependencyType.USE, i, (i * 7 + 3) % size, 1, (DependencyDetail) null);
+		}
+		return matrix;
+	}
+
+	@Test
+	public void test_xlsx_rows() throws IOException {
+		DependencyMatrix matrix = buildMatrix(500);
+		new ExcelXlsxFormatDependencyDumper(matrix, "test", folder.getRoot().getAbsolutePath()).output();
+		try (InputStream in = new FileInputStream(new File(folder.getRoot(), "test.xlsx"));
+				Workbook workbook = new XSSFWorkbook(in)) {
+			assertEquals(1, workbook.getNumberOfSheets());
+			Sheet sheet = workbook.getSheet("DSM");
+			assertEquals(500, sheet.getLastRowNum());
+			assertEquals("node10", sheet.getRow(11).getCell(1).getStringCellValue());
+			assertEquals("(10)", sheet.getRow(11).getCell(12).getStringCellValue());
+			assertEquals("Call(1),Use(1)", sheet.getRow(11).getCell(73 + 2).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void test_xls_is_split_into_sheets() throws IOException {
+		DependencyMatrix matrix = buildMatrix(300);
+		new ExcelXlsFormatDependencyDumper(matrix, "test", folder.getRoot().getAbsolutePath()).output();
+		try (InputStream in = new FileInputStream(new File(folder.getRoot(), "test.xls"));
+				Workbook workbook = new HSSFWorkbook(in)) {
+			assertEquals(2, workbook.getNumberOfSheets());
+			Sheet second = workbook.getSheet("DSM (2)");
+			assertEquals(300, second.getLastRowNum());
+			assertEquals(254.0, second.getRow(0).getCell(2).getNumericCellValue(), 0);
+			assertEquals("node40", second.getRow(41).getCell(1).getStringCellValue());
+			// 40 -> 283, the 30th node of the second sheet
+			assertEquals("Call(1),Use(1)", second.getRow(41).getCell(283 - 254 + 2).getStringCellValue());
+			assertNull(workbook.getSheet("DSM").getRow(41).getCell(283 - 254 + 2));
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package depends.format.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import depends.deptypes.DependencyType;
+import depends.format.FileAttributes;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.LocationInfo;
+
+public class JsonFormatCompatibilityTest {
+
+	private DependencyMatrix buildMatrix() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		for (int i = 0; i < 20; i++)
+			matrix.addNode("node\"" + i, i);
+		String[] types = new String[] { DependencyType.CALL, DependencyType.USE, DependencyType.CREATE,
+				DependencyType.CALL + DependencyType.POSSIBLE_DEP, DependencyType.IMPORT };
+		for (int i = 0; i < 300; i++) {
+			int from = i % 20;
+			int to = (i * 7) % 20;
+			DependencyDetail detail = null;
+			if (i % 3 == 0)
+				detail = new DependencyDetail(new LocationInfo("from" + i, "function", "a.java", i),
+						new LocationInfo("to" + i, "type", "b.java", null));
+			matrix.addDependency(types[i % types.length], from, to, 1, detail);
+		}
+		return matrix;
+	}
+
+	@Test
+	public void test_streaming_output_is_same_as_object_mapper() throws IOException {
+		DependencyMatrix matrix = buildMatrix();
+		byte[] expected = new ObjectMapper().writerWithDefaultPrettyPrinter()
+				.writeValueAsBytes(new JDataBuilder().build(matrix, new FileAttributes("test")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new JsonFormatDependencyDumper(matrix, "test", null).write(out);
+		assertArrayEquals(expected, out.toByteArray());
+	}
+
+	@Test
+	public void test_compact_output() throws IOException {
+		DependencyMatrix matrix = buildMatrix();
+		ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+		new JsonFormatDependencyDumper(matrix, "test", null).write(pretty);
+		ByteArrayOutputStream compact = new ByteArrayOutputStream();
+		JsonFormatDependencyDumper dumper = new JsonFormatDependencyDumper(matrix, "test", null);
+		dumper.setCompact(true);
+		dumper.write(compact);
+
+		assertTrue(compact.size() < pretty.size());
+		ObjectMapper mapper = new ObjectMapper();
+		assertEquals(mapper.readTree(pretty.toByteArray()), mapper.readTree(compact.toByteArray()));
+	}
+}
@@ -0,0 +1,106 @@
+package depends.format.xml;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import depends.deptypes.DependencyType;
+import depends.entity.repo.EntityRepo;
+import depends.extractor.java.JavaProcessor;
+import depends.format.FileAttributes;
+import depends.generator.DependencyGenerator;
+import depends.generator.FileDependencyGenerator;
+import depends.generator.FunctionDependencyGenerator;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.relations.BindingResolver;
+import depends.relations.RelationCounter;
+import multilang.depends.util.file.TemporaryFile;
+
+public class XmlFormatDependencyDumperTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] jaxbOutput(DependencyMatrix matrix) throws JAXBException {
+		XDepObject xDepObject = new XDataBuilder().build(matrix, new FileAttributes("test"));
+		Marshaller marshaller = JAXBContext.newInstance(XDepObject.class).createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshaller.marshal(xDepObject, out);
+		return out.toByteArray();
+	}
+
+	private byte[] staxOutput(DependencyMatrix matrix) throws IOException, XMLStreamException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XmlFormatDependencyDumper(matrix, "test", null).write(out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void test_same_as_jaxb_on_java_examples() throws Exception {
+		TemporaryFile.reset();
+		JavaProcessor processor = new JavaProcessor();
+		BindingResolver bindingResolver = new BindingResolver(processor, false, true);
+		EntityRepo repo = processor.buildDependencies("./src/test/resources/java-code-examples", new String[] {},
+				bindingResolver);
+		new RelationCounter(repo, processor, bindingResolver).computeRelations();
+		for (DependencyGenerator generator : new DependencyGenerator[] { new FileDependencyGenerator(),
+				new FunctionDependencyGenerator() }) {
+			DependencyMatrix matrix = generator.identifyDependencies(repo, null);
+			assertArrayEquals(jaxbOutput(matrix), staxOutput(matrix));
+		}
+	}
+
+	@Test
+	public void test_same_as_jaxb_with_escaped_names() throws Exception {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addNode("a<T>&\"b\"", 0);
+		matrix.addNode("c'dé中", 1);
+		matrix.addDependency(DependencyType.CALL, 0, 1, 3, (DependencyDetail) null);
+		matrix.addDependency(DependencyType.USE + DependencyType.POSSIBLE_DEP, 0, 1, 1, (DependencyDetail) null);
+		matrix.addDependency("Custom<&>\"", 1, 0, 12345678, (DependencyDetail) null);
+		assertArrayEquals(jaxbOutput(matrix), staxOutput(matrix));
+	}
+
+	@Test
+	public void test_same_as_jaxb_on_empty_matrix() throws Exception {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		assertArrayEquals(jaxbOutput(matrix), staxOutput(matrix));
+	}
+
+	@Test
+	public void test_gzip_output() throws Exception {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addNode("a", 0);
+		matrix.addNode("b", 1);
+		matrix.addDependency(DependencyType.CALL, 0, 1, 1, (DependencyDetail) null);
+		XmlFormatDependencyDumper dumper = new XmlFormatDependencyDumper(matrix, "test", folder.getRoot().getAbsolutePath());
+		dumper.setGzip(true);
+		dumper.output();
+
+		byte[] compressed = Files.readAllBytes(new File(folder.getRoot(), "test.xml.gz").toPath());
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = in.read(buffer)) > 0)
+				content.write(buffer, 0, length);
+		}
+		assertArrayEquals(staxOutput(matrix), content.toByteArray());
+	}
+}
@@ -0,0 +1,72 @@
+package depends.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import depends.entity.repo.EntityRepo;
+import depends.extractor.java.JavaProcessor;
+import depends.format.json.JsonFormatDependencyDumper;
+import depends.matrix.core.DependencyMatrix;
+import depends.relations.BindingResolver;
+import depends.relations.RelationCounter;
+import multilang.depends.util.file.TemporaryFile;
+
+public class MultiGranularityDependencyGeneratorTest {
+	private static EntityRepo repo;
+
+	@BeforeClass
+	public static void buildRepo() {
+		TemporaryFile.reset();
+		JavaProcessor processor = new JavaProcessor();
+		BindingResolver bindingResolver = new BindingResolver(processor, false, true);
+		repo = processor.buildDependencies("./src/test/resources/java-code-examples", new String[] {}, bindingResolver);
+		new RelationCounter(repo, processor, bindingResolver).computeRelations();
+	}
+
+	private List<DependencyGenerator> generators() {
+		List<DependencyGenerator> generators = new ArrayList<>();
+		generators.add(new FileDependencyGenerator());
+		generators.add(new FunctionDependencyGenerator());
+		generators.add(new StructureDependencyGenerator());
+		for (DependencyGenerator generator : generators) {
+			generator.setGenerateDetail(true);
+		}
+		return generators;
+	}
+
+	private byte[] jsonOf(DependencyMatrix matrix) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new JsonFormatDependencyDumper(matrix, "test", null).write(out);
+		return out.toByteArray();
+	}
+
+	private void assertSameAsSeparateGenerators(boolean parallel) throws IOException {
+		List<DependencyGenerator> generators = generators();
+		MultiGranularityDependencyGenerator multiGranularityGenerator = new MultiGranularityDependencyGenerator(generators);
+		multiGranularityGenerator.setParallel(parallel);
+		List<DependencyMatrix> matrices = multiGranularityGenerator.identifyDependencies(repo, null);
+		assertEquals(generators.size(), matrices.size());
+		for (int i = 0; i < generators.size(); i++) {
+			DependencyMatrix expected = generators.get(i).identifyDependencies(repo, null);
+			assertArrayEquals(jsonOf(expected), jsonOf(matrices.get(i)));
+		}
+	}
+
+	@Test
+	public void test_single_pass_is_same_as_separate_generators() throws IOException {
+		assertSameAsSeparateGenerators(false);
+	}
+
+	@Test
+	public void test_parallel_is_same_as_separate_generators() throws IOException {
+		assertSameAsSeparateGenerators(true);
+	}
+}
@@ -0,0 +1,85 @@
+package depends.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyCells;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.DependencyPair;
+import depends.matrix.core.DependencyValue;
+import depends.matrix.core.LocationInfo;
+
+public class DependencyMatrixTest {
+
+	@Test
+	public void test_cells_are_frozen_in_rows() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		for (int i = 0; i < 1000; i++) {
+			matrix.addDependency(DependencyType.CALL, i % 10, i % 7, 1, (DependencyDetail) null);
+		}
+		matrix.addDependency(DependencyType.ordinalOf(DependencyType.USE), true, 3, 5, 2, null);
+		matrix.addDependency(DependencyType.CALL, 4, 4, 1, (DependencyDetail) null);
+
+		DependencyCells cells = matrix.getCells();
+		assertEquals(63, cells.cellCount());
+		assertEquals(10, cells.rowCount());
+		int row = cells.rowOf(3);
+		int total = 0;
+		int lastColumn = -1;
+		for (int cell = cells.rowStart(row); cell < cells.rowEnd(row); cell++) {
+			assertTrue(cells.column(cell) > lastColumn);
+			lastColumn = cells.column(cell);
+			for (int value = cells.valueStart(cell); value < cells.valueEnd(cell); value++) {
+				total += cells.weight(value);
+				if (cells.column(cell) == 5 && cells.possible(value))
+					assertEquals("Use(possible)", cells.type(value));
+			}
+		}
+		assertEquals(87, total);
+		assertTrue(cells.rowOf(42) < 0);
+	}
+
+	@Test
+	public void test_dependency_pairs_adapter() {
+		DependencyMatrix matrix = new DependencyMatrix(0, Arrays.asList(DependencyType.CALL), true);
+		DependencyDetail detail = new DependencyDetail(new LocationInfo("a", "function", "a.java", 1),
+				new LocationInfo("b", "function", "b.java", 2));
+		matrix.addDependency(DependencyType.CALL, 1, 2, 1, detail);
+		matrix.addDependency(DependencyType.CALL + DependencyType.POSSIBLE_DEP, 1, 2, 1, detail);
+		matrix.addDependency(DependencyType.CALL, 1, 2, 1, detail);
+		matrix.addDependency(DependencyType.USE, 1, 2, 1, detail);
+		matrix.addDependency(DependencyType.CALL, 2, 2, 3, (DependencyDetail) null);
+
+		List<DependencyPair> pairs = new ArrayList<>(matrix.getDependencyPairs());
+		assertEquals(2, pairs.size());
+		assertEquals(Integer.valueOf(1), pairs.get(0).getFrom());
+		assertEquals(Integer.valueOf(2), pairs.get(0).getTo());
+		Map<String, DependencyValue> values = new HashMap<>();
+		for (DependencyValue value : pairs.get(0).getDependencies()) {
+			values.put(value.getType(), value);
+		}
+		assertEquals(2, values.size());
+		assertEquals(2, values.get("Call").getWeight());
+		assertEquals(2, values.get("Call").getDetails().size());
+		assertEquals(1, values.get("Call(possible)").getWeight());
+		assertEquals(3, pairs.get(1).getDependencies().iterator().next().getWeight());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_no_dependency_could_be_added_after_read() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addDependency(DependencyType.CALL, 1, 2, 1, (DependencyDetail) null);
+		matrix.getDependencyPairs();
+		matrix.addDependency(DependencyType.CALL, 1, 3, 1, (DependencyDetail) null);
+	}
+}
@@ -2,8 +2,18 @@ package depends.matrix;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
 import org.junit.Test;
 
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.DependencyPair;
 import depends.matrix.transform.MatrixLevelReducer;
 
 public class MatrixLevelReducerTest {
@@ -49,4 +59,42 @@ public class MatrixLevelReducerTest {
 		assertEquals("/maven",
 				MatrixLevelReducer.calcuateNodeAtLevel(node, 1));
 	}
+
+	@Test
+	public void test_matrix_is_reduced_to_levels() {
+		String[] names = new String[] { "a.b.C", "a.b.D", "a.c.E", "x/y/z.java", "x/w.java", "/x/y", "a", "a.b.C" };
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		for (int i = 0; i < names.length; i++)
+			matrix.addNode(names[i], i * 3);
+		for (int i = 0; i < names.length; i++) {
+			for (int j = 0; j < names.length; j++) {
+				matrix.addDependency(DependencyType.CALL, i * 3, j * 3, i + j, (DependencyDetail) null);
+			}
+		}
+		MatrixLevelReducer reducer = new MatrixLevelReducer(matrix);
+		assertEquals(3, reducer.getMaxLevel());
+		List<DependencyMatrix> reduced = reducer.shrinkToLevels(1, 2, 3, 4);
+		for (int level = 1; level <= 4; level++) {
+			DependencyMatrix levelMatrix = reduced.get(level - 1);
+			TreeSet<String> expectedNodes = new TreeSet<>();
+			Map<String, Integer> expectedWeights = new TreeMap<>();
+			for (int i = 0; i < names.length; i++) {
+				expectedNodes.add(MatrixLevelReducer.calcuateNodeAtLevel(names[i], level));
+				for (int j = 0; j < names.length; j++) {
+					String from = MatrixLevelReducer.calcuateNodeAtLevel(names[i], level);
+					String to = MatrixLevelReducer.calcuateNodeAtLevel(names[j], level);
+					if (i != j && !from.equals(to))
+						expectedWeights.merge(from + "->" + to, i + j, Integer::sum);
+				}
+			}
+			assertEquals(new ArrayList<>(expectedNodes), levelMatrix.getNodes());
+			Map<String, Integer> weights = new TreeMap<>();
+			for (DependencyPair pair : levelMatrix.getDependencyPairs()) {
+				weights.put(levelMatrix.getNodeName(pair.getFrom()) + "->" + levelMatrix.getNodeName(pair.getTo()),
+						pair.getDependencies().iterator().next().getWeight());
+			}
+			assertEquals(expectedWeights, weights);
+		}
+		assertEquals(matrix, new MatrixLevelReducer(matrix, "x").shrinkToLevel());
+	}
 }
@@ -0,0 +1,87 @@
+package depends.matrix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import depends.deptypes.DependencyType;
+import depends.matrix.core.DependencyDetail;
+import depends.matrix.core.DependencyMatrix;
+import depends.matrix.core.DependencyPair;
+import depends.matrix.core.DependencyValue;
+import depends.matrix.core.LocationInfo;
+import depends.matrix.transform.OrderedMatrixGenerator;
+
+public class OrderedMatrixGeneratorTest {
+
+	private DependencyDetail detail(int line) {
+		return new DependencyDetail(new LocationInfo("a", "function", "a.java", line),
+				new LocationInfo("b", "function", "b.java", line));
+	}
+
+	@Test
+	public void test_nodes_are_ordered_by_name() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addNode("c", 10);
+		matrix.addNode("a", 20);
+		matrix.addNode("b", 30);
+		matrix.addDependency(DependencyType.CALL, 10, 20, 1, detail(1));
+		matrix.addDependency(DependencyType.USE, 10, 20, 2, detail(2));
+		matrix.addDependency(DependencyType.CALL, 20, 30, 3, (DependencyDetail) null);
+		matrix.addDependency(DependencyType.CALL, 30, 10, 4, (DependencyDetail) null);
+
+		DependencyMatrix ordered = new OrderedMatrixGenerator(matrix).build();
+		assertEquals(Arrays.asList("a", "b", "c"), ordered.getNodes());
+		assertEquals("c", ordered.getNodeName(2));
+		assertEquals(Arrays.asList("0->1 Call(3)", "1->2 Call(4)", "2->0 Call(1)[1] Use(2)[1]"),
+				describe(ordered));
+		assertEquals(3, ordered.getCells().cellCount());
+		assertEquals(0, ordered.getCells().rowOf(0));
+	}
+
+	@Test
+	public void test_nodes_of_same_name_are_merged() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addNode("m", 1);
+		matrix.addNode("m", 2);
+		matrix.addNode("k", 3);
+		matrix.addDependency(DependencyType.CALL, 1, 3, 1, detail(1));
+		matrix.addDependency(DependencyType.CALL, 2, 3, 2, detail(2));
+		matrix.addDependency(DependencyType.USE, 2, 3, 1, (DependencyDetail) null);
+		matrix.addDependency(DependencyType.CALL, 1, 2, 5, (DependencyDetail) null);
+		matrix.addDependency(DependencyType.CALL, 3, 1, 1, (DependencyDetail) null);
+		matrix.addDependency(DependencyType.CALL, 3, 2, 1, (DependencyDetail) null);
+
+		DependencyMatrix ordered = new OrderedMatrixGenerator(matrix).build();
+		assertEquals(Arrays.asList("k", "m", "m"), ordered.getNodes());
+		/* the self dependency of the merged node is dropped */
+		assertEquals(Arrays.asList("0->2 Call(2)", "2->0 Call(3)[2] Use(1)"), describe(ordered));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_no_dependency_could_be_added_to_ordered_matrix() {
+		DependencyMatrix matrix = new DependencyMatrix(0, null, false);
+		matrix.addNode("a", 1);
+		new OrderedMatrixGenerator(matrix).build().addDependency(DependencyType.CALL, 0, 0, 1,
+				(DependencyDetail) null);
+	}
+
+	private List<String> describe(DependencyMatrix matrix) {
+		List<String> cells = new ArrayList<>();
+		for (DependencyPair pair : matrix.getDependencyPairs()) {
+			List<String> values = new ArrayList<>();
+			for (DependencyValue value : pair.getDependencies()) {
+				values.add(value.getType() + "(" + value.getWeight() + ")"
+						+ (value.getDetails().isEmpty() ? "" : "[" + value.getDetails().size() + "]"));
+			}
+			Collections.sort(values);
+			cells.add(pair.getFrom() + "->" + pair.getTo() + " " + String.join(" ", values));
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,46 @@
+package depends.relations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import depends.deptypes.DependencyType;
+import depends.entity.GenericName;
+import depends.entity.Location;
+import depends.entity.TypeEntity;
+
+public class RelationListTest {
+
+	@Test
+	public void test_relations_in_columns() {
+		TypeEntity a = new TypeEntity(GenericName.build("a"), null, 1);
+		TypeEntity b = new TypeEntity(GenericName.build("b"), null, 2);
+		Location location = new Location();
+		location.setLine(12);
+		for (int i = 0; i < 10; i++) {
+			a.addRelation(new Relation(DependencyType.CALL, b, location, i % 2 == 1));
+		}
+		a.addRelation(new Relation("CustomType", b, null, false));
+
+		RelationList relations = a.relationList();
+		assertEquals(11, relations.size());
+		assertEquals(b, relations.target(0));
+		assertEquals("Call", relations.typeWithFlag(0));
+		assertEquals("Call(possible)", relations.typeWithFlag(1));
+		assertEquals(12, relations.line(9));
+		assertEquals("CustomType", relations.type(10));
+		assertFalse(relations.hasLine(10));
+
+		List<Relation> view = a.getRelations();
+		assertEquals(11, view.size());
+		assertTrue(view.get(1).possible());
+		assertEquals(Integer.valueOf(12), view.get(1).getFromLine());
+		assertNull(view.get(10).getFromLine());
+		assertEquals(DependencyType.ordinalOf("CustomType"), relations.typeOrdinal(10));
+	}
+}